@@ -15,6 +15,8 @@ limitations under the License.
 
 package org.tensorflow.contrib.android;
 
+import org.tensorflow.RunOptions;
+
 /** Accumulate and analyze stats from metadata obtained from Session.Runner.run. */
 public class RunStats implements AutoCloseable {
 
@@ -49,9 +51,8 @@ public class RunStats implements AutoCloseable {
 
   private long nativeHandle;
 
-  // Hack: This is what a serialized RunOptions protocol buffer with trace_level: FULL_TRACE ends
-  // up as.
-  private static byte[] fullTraceRunOptions = new byte[] {0x08, 0x03};
+  private static byte[] fullTraceRunOptions =
+      RunOptions.builder().traceLevel(RunOptions.TraceLevel.FULL_TRACE).build().toByteArray();
 
   private static native long allocate();
 
@@ -0,0 +1,30 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+/**
+ * Unchecked exception thrown when the execution of a {@link Graph} is cancelled by the TensorFlow
+ * runtime, for example when pending operations are aborted by the closing of a queue.
+ *
+ * <p>The {@link java.util.concurrent.Future} of a run submitted by {@link
+ * Session.Runner#runAsync(java.util.concurrent.Executor)} reports it as the cause of an {@link
+ * java.util.concurrent.ExecutionException}, unlike a cancellation of the Future itself.
+ */
+public final class CancelledException extends TensorFlowException {
+  CancelledException(String message) {
+    super(message);
+  }
+}
@@ -29,6 +29,12 @@ public enum DataType {
   /** 8-bit unsigned integer. */
   UINT8(4),
 
+  /** 16-bit signed integer. */
+  INT16(5),
+
+  /** 8-bit signed integer. */
+  INT8(6),
+
   /**
    * A sequence of bytes.
    *
@@ -40,7 +46,21 @@ public enum DataType {
   INT64(9),
 
   /** Boolean. */
-  BOOL(10);
+  BOOL(10),
+
+  /** Quantized 8-bit unsigned integer. */
+  QUINT8(12),
+
+  /**
+   * 16-bit brain floating point.
+   *
+   * <p>The upper 16 bits of a 32-bit single precision floating point number, with the same range
+   * but a reduced precision.
+   */
+  BFLOAT16(14),
+
+  /** 16-bit IEEE 754 half precision floating point. */
+  HALF(19);
 
   private final int value;
 
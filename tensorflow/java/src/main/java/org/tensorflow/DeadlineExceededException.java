@@ -0,0 +1,28 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+/**
+ * Unchecked exception thrown when the execution of a {@link Graph} does not complete before its
+ * deadline.
+ *
+ * <p>See {@link Session.Runner#withTimeout(long, java.util.concurrent.TimeUnit)}.
+ */
+public final class DeadlineExceededException extends TensorFlowException {
+  DeadlineExceededException(String message) {
+    super(message);
+  }
+}
@@ -15,6 +15,19 @@ limitations under the License.
 
 package org.tensorflow;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A data flow graph representing a TensorFlow computation.
  *
@@ -43,19 +56,7 @@ public final class Graph implements AutoCloseable {
    */
   @Override
   public void close() {
-    synchronized (nativeHandleLock) {
-      if (nativeHandle == 0) {
-        return;
-      }
-      while (refcount > 0) {
-        try {
-          nativeHandleLock.wait();
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          // Possible leak of the graph in this case?
-          return;
-        }
-      }
+    if (refs.close()) {
       delete(nativeHandle);
       nativeHandle = 0;
     }
@@ -65,14 +66,36 @@ public final class Graph implements AutoCloseable {
    * Returns the operation (node in the Graph) with the provided name.
    *
    * <p>Or {@code null} if no such operation exists in the Graph.
+   *
+   * <p>Lookups are served from an index of the operations of the Graph, which is extended with the
+   * operations added since the previous lookup that missed it. Repeated lookups of an operation
+   * return the same instance.
    */
   public Operation operation(String name) {
-    synchronized (nativeHandleLock) {
-      long oph = operation(nativeHandle, name);
-      if (oph == 0) {
-        return null;
+    if (refs.isClosed()) {
+      throw new IllegalStateException("close() has been called on the Graph");
+    }
+    Operation op = operationsByName.get(name);
+    if (op == null) {
+      synchronized (operationsByName) {
+        if (indexOperations()) {
+          op = operationsByName.get(name);
+        }
       }
-      return new Operation(this, oph);
+    }
+    return op;
+  }
+
+  /**
+   * Iterator over all the {@link Operation}s in the graph, in the order they were added.
+   *
+   * <p>The iterator covers the operations in the graph when this method is called. Operations added
+   * later are not included.
+   */
+  public Iterator<Operation> operations() {
+    synchronized (operationsByName) {
+      indexOperations();
+      return new ArrayList<Operation>(operations).iterator();
     }
   }
 
@@ -114,9 +137,168 @@ public final class Graph implements AutoCloseable {
     if (graphDef == null || prefix == null) {
       throw new IllegalArgumentException("graphDef and prefix cannot be null");
     }
-    synchronized (nativeHandleLock) {
-      importGraphDef(nativeHandle, graphDef, prefix);
+    importGraphDef(graphDef, prefix, Collections.<String, Output>emptyMap());
+  }
+
+  /**
+   * Import a serialized representation of a TensorFlow graph held in a {@link ByteBuffer}.
+   *
+   * <p>The bytes between the position and the limit of {@code graphDef} are imported, and its
+   * position, limit and mark are left unchanged. The contents of a direct buffer, such as one
+   * obtained by memory-mapping a file, are passed to TensorFlow without being copied onto the Java
+   * heap, which makes it possible to import graphs too large to hold in a {@code byte[]} alongside
+   * the imported nodes. Other buffers are copied.
+   *
+   * @param graphDef the serialized representation of a TensorFlow graph.
+   * @param prefix a prefix that will be prepended to names in graphDef
+   * @throws IllegalArgumentException if graphDef is not a recognized serialization of a graph.
+   * @see #importGraphDef(File)
+   */
+  public void importGraphDef(ByteBuffer graphDef, String prefix) throws IllegalArgumentException {
+    if (graphDef == null || prefix == null) {
+      throw new IllegalArgumentException("graphDef and prefix cannot be null");
+    }
+    if (!graphDef.isDirect()) {
+      byte[] copy = new byte[graphDef.remaining()];
+      graphDef.duplicate().get(copy);
+      importGraphDef(copy, prefix);
+      return;
+    }
+    Reference r = ref();
+    try {
+      importGraphDefFromBuffer(
+          r.nativeHandle(), graphDef, graphDef.position(), graphDef.remaining(), prefix);
+    } finally {
+      r.close();
+    }
+  }
+
+  /**
+   * Import the serialized representation of a TensorFlow graph stored in a file.
+   *
+   * <p>The file is memory-mapped rather than read, see {@link #importGraphDef(ByteBuffer,
+   * String)}.
+   *
+   * @param file the file containing the serialized representation of a TensorFlow graph.
+   * @throws IOException if the file cannot be opened or mapped.
+   * @throws IllegalArgumentException if the file does not contain a recognized serialization of a
+   *     graph.
+   */
+  public void importGraphDef(File file) throws IOException, IllegalArgumentException {
+    MappedByteBuffer graphDef;
+    // RandomAccessFile rather than java.nio.file, which Android only provides from API level 26.
+    try (RandomAccessFile f = new RandomAccessFile(file, "r");
+        FileChannel channel = f.getChannel()) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "GraphDef in " + file + " is too large to import: " + size + " bytes");
+      }
+      // The mapping remains valid after the channel is closed.
+      graphDef = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    importGraphDef(graphDef, "");
+  }
+
+  /**
+   * Import a serialized representation of a TensorFlow graph, as configured by {@code options}.
+   *
+   * <p>With {@link ImportOptions.Builder#pruneTo}, only the nodes needed to compute the given
+   * fetches are imported, which saves the memory and session setup time of training and other
+   * unused nodes when serving a graph.
+   *
+   * @param graphDef the serialized representation of a TensorFlow graph.
+   * @param prefix a prefix that will be prepended to names in graphDef
+   * @param options options of the import
+   * @return the number of nodes imported and dropped
+   * @throws IllegalArgumentException if graphDef is not a recognized serialization of a graph, or
+   *     if it does not contain the nodes named by {@code options}.
+   */
+  public ImportResult importGraphDef(byte[] graphDef, String prefix, ImportOptions options)
+      throws IllegalArgumentException {
+    if (graphDef == null || prefix == null || options == null) {
+      throw new IllegalArgumentException("graphDef, prefix and options cannot be null");
+    }
+    ImportResult result;
+    if (options.pruneFetches() != null) {
+      GraphPruner.Result pruned =
+          GraphPruner.prune(
+              graphDef,
+              options.pruneFetches(),
+              options.pruneFeeds(),
+              options.inputMappings().keySet());
+      graphDef = pruned.graphDef;
+      result =
+          new ImportResult(
+              pruned.numKeptNodes, pruned.numDroppedNodes, pruned.numDroppedConstantBytes);
+    } else {
+      result = new ImportResult(GraphPruner.countNodes(graphDef), 0, 0);
+    }
+    importGraphDef(graphDef, prefix, options.inputMappings());
+    return result;
+  }
+
+  private void importGraphDef(byte[] graphDef, String prefix, Map<String, Output> inputMappings) {
+    int n = inputMappings.size();
+    String[] srcNames = new String[n];
+    int[] srcIndices = new int[n];
+    long[] dstOpHandles = new long[n];
+    int[] dstIndices = new int[n];
+    int i = 0;
+    for (Map.Entry<String, Output> e : inputMappings.entrySet()) {
+      String src = e.getKey();
+      int colon = src.lastIndexOf(':');
+      srcNames[i] = src.substring(0, colon);
+      try {
+        srcIndices[i] = Integer.parseInt(src.substring(colon + 1));
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("invalid output index in [" + src + "]");
+      }
+      Operation dst = e.getValue().op();
+      if (dst.graph() != this) {
+        throw new IllegalArgumentException(
+            "input mapping for [" + src + "] replaces it by an Output of another Graph");
+      }
+      dstOpHandles[i] = dst.getUnsafeNativeHandle();
+      dstIndices[i] = e.getValue().index();
+      ++i;
+    }
+    // The handles of the replacement operations are safe to use while r keeps the Graph open.
+    Reference r = ref();
+    try {
+      importGraphDef(
+          r.nativeHandle(), graphDef, prefix, srcNames, srcIndices, dstOpHandles, dstIndices);
+    } finally {
+      r.close();
+    }
+  }
+
+  /** Statistics of {@link Graph#importGraphDef(byte[], String, ImportOptions)}. */
+  public static final class ImportResult {
+    /** Returns the number of nodes imported. */
+    public int numImportedNodes() {
+      return numImportedNodes;
+    }
+
+    /** Returns the number of nodes left out of the import. */
+    public int numDroppedNodes() {
+      return numDroppedNodes;
     }
+
+    /** Returns the serialized size of the constants left out of the import, in bytes. */
+    public long numDroppedConstantBytes() {
+      return numDroppedConstantBytes;
+    }
+
+    private ImportResult(int numImportedNodes, int numDroppedNodes, long numDroppedConstantBytes) {
+      this.numImportedNodes = numImportedNodes;
+      this.numDroppedNodes = numDroppedNodes;
+      this.numDroppedConstantBytes = numDroppedConstantBytes;
+    }
+
+    private final int numImportedNodes;
+    private final int numDroppedNodes;
+    private final long numDroppedConstantBytes;
   }
 
   /**
@@ -126,50 +308,69 @@ public final class Graph implements AutoCloseable {
    * @see #importGraphDef(byte[], String)
    */
   public byte[] toGraphDef() {
-    synchronized (nativeHandleLock) {
-      return toGraphDef(nativeHandle);
+    Reference r = ref();
+    try {
+      return toGraphDef(r.nativeHandle());
+    } finally {
+      r.close();
+    }
+  }
+
+  // Adds the operations after indexedPosition to the index, returning true if there were any. Must
+  // be called with operationsByName locked.
+  private boolean indexOperations() {
+    Reference r = ref();
+    try {
+      boolean added = false;
+      long[] next;
+      while ((next = nextOperation(r.nativeHandle(), indexedPosition)) != null) {
+        Operation op = new Operation(this, next[0]);
+        operations.add(op);
+        operationsByName.put(op.name(), op);
+        indexedPosition = (int) next[1];
+        added = true;
+      }
+      return added;
+    } finally {
+      r.close();
     }
   }
 
-  private final Object nativeHandleLock = new Object();
+  private final ReferenceCount refs = new ReferenceCount();
   private long nativeHandle;
-  private int refcount = 0;
+
+  // The index of the operations of the graph, read lazily. Lookups of indexed operations do not
+  // lock. The other fields are guarded by operationsByName.
+  private final ConcurrentHashMap<String, Operation> operationsByName =
+      new ConcurrentHashMap<String, Operation>();
+  private final List<Operation> operations = new ArrayList<Operation>();
+  private int indexedPosition = 0;
 
   // Related native objects (such as the TF_Operation object backing an Operation instance)
   // have a validity tied to that of the Graph. The handles to those native objects are not
   // valid after Graph.close() has been invoked.
   //
   // Instances of the Reference class should be used to ensure the Graph has not been closed
-  // while dependent handles are in use.
+  // while dependent handles are in use. Creating and closing a Reference does not lock the Graph,
+  // see ReferenceCount.
   class Reference implements AutoCloseable {
     private Reference() {
-      synchronized (Graph.this.nativeHandleLock) {
-        active = Graph.this.nativeHandle != 0;
-        if (!active) {
-          throw new IllegalStateException("close() has been called on the Graph");
-        }
-        active = true;
-        Graph.this.refcount++;
+      if (!Graph.this.refs.acquire()) {
+        throw new IllegalStateException("close() has been called on the Graph");
       }
+      active = true;
     }
 
     @Override
     public void close() {
-      synchronized (Graph.this.nativeHandleLock) {
-        if (!active) {
-          return;
-        }
+      if (active) {
         active = false;
-        if (--Graph.this.refcount == 0) {
-          Graph.this.nativeHandleLock.notifyAll();
-        }
+        Graph.this.refs.release();
       }
     }
 
     public long nativeHandle() {
-      synchronized (Graph.this.nativeHandleLock) {
-        return active ? Graph.this.nativeHandle : 0;
-      }
+      return active ? Graph.this.nativeHandle : 0;
     }
 
     private boolean active;
@@ -183,9 +384,23 @@ public final class Graph implements AutoCloseable {
 
   private static native void delete(long handle);
 
-  private static native long operation(long handle, String name);
+  // This method returns the Operation object at the position "position" and the position of the
+  // next operation in the graph, or null once all operations have been returned.
+  private static native long[] nextOperation(long handle, int position);
+
+  private static native void importGraphDef(
+      long handle,
+      byte[] graphDef,
+      String prefix,
+      String[] inputMappingSrcNames,
+      int[] inputMappingSrcIndices,
+      long[] inputMappingDstOpHandles,
+      int[] inputMappingDstIndices)
+      throws IllegalArgumentException;
 
-  private static native void importGraphDef(long handle, byte[] graphDef, String prefix)
+  // Imports the length bytes of the direct buffer graphDef starting at offset.
+  private static native void importGraphDefFromBuffer(
+      long handle, ByteBuffer graphDef, int offset, int length, String prefix)
       throws IllegalArgumentException;
 
   private static native byte[] toGraphDef(long handle);
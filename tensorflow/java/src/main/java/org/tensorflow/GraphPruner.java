@@ -0,0 +1,300 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes from a serialized <a
+ * href="https://www.tensorflow.org/code/tensorflow/core/framework/graph.proto">GraphDef</a> the
+ * nodes that a set of fetches do not depend on.
+ *
+ * <p>Nodes are copied without being decoded beyond their name, operation type, inputs and device.
+ * All the other fields of the GraphDef, such as its function library, are kept.
+ */
+final class GraphPruner {
+
+  /** The outcome of {@link #prune}. */
+  static final class Result {
+    final byte[] graphDef;
+    final int numKeptNodes;
+    final int numDroppedNodes;
+    final long numDroppedConstantBytes;
+
+    private Result(
+        byte[] graphDef, int numKeptNodes, int numDroppedNodes, long numDroppedConstantBytes) {
+      this.graphDef = graphDef;
+      this.numKeptNodes = numKeptNodes;
+      this.numDroppedNodes = numDroppedNodes;
+      this.numDroppedConstantBytes = numDroppedConstantBytes;
+    }
+  }
+
+  /**
+   * Prune {@code graphDef} to the transitive dependencies of {@code fetches}, not following the
+   * inputs of {@code feeds} nor the inputs replaced by {@code mappedOutputs}.
+   *
+   * <p>Names in {@code mappedOutputs} are of the form "operation_name:output_index". The control
+   * dependencies on their operations are considered replaced as well.
+   *
+   * <p>A fed node that has inputs is replaced by a {@code Placeholder} with the type and shape of
+   * its first output. These are not known without the definitions of the operations, so they are
+   * obtained by importing the fed node and its dependencies into a scratch {@link Graph}.
+   *
+   * @throws IllegalArgumentException if {@code graphDef} is malformed, if a fetch or feed is not a
+   *     node of the graph, or if a fed node that has inputs is fed or used through an output other
+   *     than its first
+   */
+  static Result prune(
+      byte[] graphDef,
+      Collection<String> fetches,
+      Collection<String> feeds,
+      Collection<String> mappedOutputs) {
+    List<Node> nodes = new ArrayList<Node>();
+    ProtoWriter otherFields = new ProtoWriter();
+    ProtoReader r = new ProtoReader(graphDef);
+    while (r.next()) {
+      if (r.field() == 1) { // GraphDef.node
+        int start = r.fieldStart();
+        nodes.add(parseNode(r.readMessage(), start, r.position()));
+      } else {
+        int start = r.fieldStart();
+        r.skip();
+        otherFields.writeRaw(graphDef, start, r.position() - start);
+      }
+    }
+    Map<String, Node> byName = new HashMap<String, Node>();
+    for (Node n : nodes) {
+      byName.put(n.name, n);
+    }
+
+    Set<Node> fed = new HashSet<Node>();
+    // Nodes fed or used through an output other than their first.
+    Set<Node> otherOutputUsed = new HashSet<Node>();
+    for (String feed : feeds) {
+      Node n = find(byName, feed);
+      fed.add(n);
+      if (outputIndex(feed) != 0) {
+        otherOutputUsed.add(n);
+      }
+    }
+    Set<String> mappedNodes = new HashSet<String>();
+    for (String output : mappedOutputs) {
+      mappedNodes.add(nodeName(output));
+    }
+    Set<Node> kept = new HashSet<Node>();
+    ArrayDeque<Node> pending = new ArrayDeque<Node>();
+    for (String fetch : fetches) {
+      Node n = find(byName, fetch);
+      if (outputIndex(fetch) != 0) {
+        otherOutputUsed.add(n);
+      }
+      if (kept.add(n)) {
+        pending.add(n);
+      }
+    }
+    while (!pending.isEmpty()) {
+      Node n = pending.poll();
+      if (fed.contains(n)) {
+        continue;
+      }
+      for (String input : n.inputs) {
+        if (input.startsWith("^")
+            ? mappedNodes.contains(nodeName(input))
+            : mappedOutputs.contains(input.indexOf(':') < 0 ? input + ":0" : input)) {
+          continue;
+        }
+        Node dep = byName.get(nodeName(input));
+        // Inputs missing from the graph are left for the import to report.
+        if (dep == null) {
+          continue;
+        }
+        if (outputIndex(input) != 0) {
+          otherOutputUsed.add(dep);
+        }
+        if (kept.add(dep)) {
+          pending.add(dep);
+        }
+      }
+    }
+
+    List<String> replaced = new ArrayList<String>();
+    for (Node n : fed) {
+      if (kept.contains(n) && !n.inputs.isEmpty()) {
+        if (otherOutputUsed.contains(n)) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "cannot prune the inputs of fed node '%s': only the first output of a node that"
+                      + " has inputs can be fed or used when pruning",
+                  n.name));
+        }
+        replaced.add(n.name);
+      }
+    }
+    Map<String, byte[]> placeholders = placeholders(graphDef, byName, replaced);
+
+    ProtoWriter out = new ProtoWriter();
+    int numDropped = 0;
+    long droppedConstantBytes = 0;
+    for (Node n : nodes) {
+      if (!kept.contains(n)) {
+        ++numDropped;
+        if ("Const".equals(n.op)) {
+          droppedConstantBytes += n.end - n.start;
+        }
+      } else if (placeholders.containsKey(n.name)) {
+        out.writeBytes(1, placeholders.get(n.name));
+      } else {
+        out.writeRaw(graphDef, n.start, n.end - n.start);
+      }
+    }
+    byte[] other = otherFields.toByteArray();
+    out.writeRaw(other, 0, other.length);
+    return new Result(out.toByteArray(), kept.size(), numDropped, droppedConstantBytes);
+  }
+
+  /** Returns the number of nodes of {@code graphDef}. */
+  static int countNodes(byte[] graphDef) {
+    int ret = 0;
+    ProtoReader r = new ProtoReader(graphDef);
+    while (r.next()) {
+      if (r.field() == 1) { // GraphDef.node
+        ++ret;
+      }
+      r.skip();
+    }
+    return ret;
+  }
+
+  // A NodeDef, which spans [start, end) of the GraphDef including its tag.
+  private static final class Node {
+    String name = "";
+    String op = "";
+    String device = null;
+    final List<String> inputs = new ArrayList<String>();
+    int start;
+    int end;
+  }
+
+  private static Node parseNode(ProtoReader r, int start, int end) {
+    Node n = new Node();
+    n.start = start;
+    n.end = end;
+    while (r.next()) {
+      switch (r.field()) {
+        case 1: // NodeDef.name
+          n.name = r.readString();
+          break;
+        case 2: // NodeDef.op
+          n.op = r.readString();
+          break;
+        case 3: // NodeDef.input
+          n.inputs.add(r.readString());
+          break;
+        case 4: // NodeDef.device
+          n.device = r.readString();
+          break;
+        default:
+          r.skip();
+      }
+    }
+    return n;
+  }
+
+  // Returns the Placeholders replacing the given nodes, keyed by name. Each has the name and device
+  // of the node, and the type and shape (if known) of its first output.
+  private static Map<String, byte[]> placeholders(
+      byte[] graphDef, Map<String, Node> byName, List<String> names) {
+    Map<String, byte[]> ret = new HashMap<String, byte[]>();
+    if (names.isEmpty()) {
+      return ret;
+    }
+    List<String> none = new ArrayList<String>();
+    try (Graph scratch = new Graph()) {
+      scratch.importGraphDef(prune(graphDef, names, none, none).graphDef);
+      for (String name : names) {
+        Operation op = scratch.operation(name);
+        if (op.numOutputs() < 1) {
+          throw new IllegalArgumentException(
+              "cannot feed node '" + name + "', which has no outputs");
+        }
+        Output output = op.output(0);
+        ProtoWriter w = new ProtoWriter().writeString(1, name).writeString(2, "Placeholder");
+        String device = byName.get(name).device;
+        if (device != null) {
+          w.writeString(4, device);
+        }
+        // AttrValue.type
+        byte[] dtype = new ProtoWriter().writeVarint(6, output.dataType().c()).toByteArray();
+        w.writeBytes(5, attr("dtype", dtype));
+        Shape shape = output.shape();
+        if (shape.numDimensions() >= 0) {
+          ProtoWriter dims = new ProtoWriter();
+          for (int i = 0; i < shape.numDimensions(); ++i) {
+            // TensorShapeProto.dim, of which Dim.size is -1 if unknown.
+            dims.writeBytes(2, new ProtoWriter().writeVarint(1, shape.size(i)).toByteArray());
+          }
+          byte[] shapeValue = new ProtoWriter().writeBytes(7, dims.toByteArray()).toByteArray();
+          // AttrValue.shape
+          w.writeBytes(5, attr("shape", shapeValue));
+        }
+        ret.put(name, w.toByteArray());
+      }
+    }
+    return ret;
+  }
+
+  // An entry of NodeDef.attr, a map<string, AttrValue>.
+  private static byte[] attr(String key, byte[] value) {
+    return new ProtoWriter().writeString(1, key).writeBytes(2, value).toByteArray();
+  }
+
+  private static Node find(Map<String, Node> byName, String name) {
+    Node n = byName.get(nodeName(name));
+    if (n == null) {
+      throw new IllegalArgumentException("No node named [" + nodeName(name) + "] in the GraphDef");
+    }
+    return n;
+  }
+
+  // The node of an input or output name of the form "name", "name:index" or "^name".
+  private static String nodeName(String name) {
+    int start = name.startsWith("^") ? 1 : 0;
+    int colon = name.lastIndexOf(':');
+    return colon < 0 ? name.substring(start) : name.substring(start, colon);
+  }
+
+  private static int outputIndex(String name) {
+    int colon = name.lastIndexOf(':');
+    if (colon < 0 || name.startsWith("^")) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(name.substring(colon + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid output index in [" + name + "]");
+    }
+  }
+
+  private GraphPruner() {}
+}
@@ -0,0 +1,123 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of {@link Graph#importGraphDef(byte[], String, ImportOptions)}.
+ *
+ * <p>For example, to import only the nodes needed to compute {@code "y"} from {@code "x"}, leaving
+ * out training and summary operations:
+ *
+ * <pre>{@code
+ * ImportOptions options =
+ *     ImportOptions.builder().pruneTo(Arrays.asList("y"), Arrays.asList("x")).build();
+ * Graph.ImportResult result = graph.importGraphDef(graphDef, "", options);
+ * }</pre>
+ *
+ * <p>Instances are immutable.
+ */
+public final class ImportOptions {
+
+  /** Create a builder of ImportOptions, which by default import the whole graph. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Builder of {@link ImportOptions}. */
+  public static final class Builder {
+    /**
+     * Import only the nodes that {@code fetches} depend on.
+     *
+     * <p>Names are those of the serialized graph, without the import prefix, and may be of the form
+     * <tt>operation_name:output_index</tt> or <tt>^operation_name</tt>. The dependencies of {@code
+     * feeds} are not imported: a fed node that has inputs is replaced by a {@code Placeholder} with
+     * the type and shape of its first output, so that only this output can be fed or used. Finding
+     * that type requires importing the node and its dependencies into a scratch {@link Graph}.
+     *
+     * @param fetches the outputs and operations to compute
+     * @param feeds the outputs whose values will be fed when running the graph
+     */
+    public Builder pruneTo(Collection<String> fetches, Collection<String> feeds) {
+      pruneFetches = Collections.unmodifiableList(new ArrayList<String>(fetches));
+      pruneFeeds = Collections.unmodifiableList(new ArrayList<String>(feeds));
+      return this;
+    }
+
+    /**
+     * Replace the uses of an output of the imported graph by an output already in the {@link
+     * Graph}.
+     *
+     * <p>Imported nodes that take {@code source} as input take {@code replacement} instead, and
+     * imported nodes with a control dependency on the node of {@code source} depend on the
+     * operation of {@code replacement}. When pruning, nodes used only through replaced outputs are
+     * not imported.
+     *
+     * @param source an output of the serialized graph, of the form
+     *     <tt>operation_name:output_index</tt>, or <tt>operation_name</tt> for its first output
+     * @param replacement an output of the Graph the serialized graph is imported into
+     */
+    public Builder mapInput(String source, Output replacement) {
+      if (source.startsWith("^")) {
+        throw new IllegalArgumentException("cannot map control input [" + source + "]");
+      }
+      inputMappings.put(source.indexOf(':') < 0 ? source + ":0" : source, replacement);
+      return this;
+    }
+
+    /** Create the ImportOptions. */
+    public ImportOptions build() {
+      return new ImportOptions(this);
+    }
+
+    private Builder() {}
+
+    private List<String> pruneFetches = null;
+    private List<String> pruneFeeds = Collections.emptyList();
+    private final Map<String, Output> inputMappings = new LinkedHashMap<String, Output>();
+  }
+
+  // Null if the whole graph is imported.
+  List<String> pruneFetches() {
+    return pruneFetches;
+  }
+
+  List<String> pruneFeeds() {
+    return pruneFeeds;
+  }
+
+  // Replacements keyed by "operation_name:output_index".
+  Map<String, Output> inputMappings() {
+    return inputMappings;
+  }
+
+  private ImportOptions(Builder b) {
+    pruneFetches = b.pruneFetches;
+    pruneFeeds = b.pruneFeeds;
+    inputMappings =
+        Collections.unmodifiableMap(new LinkedHashMap<String, Output>(b.inputMappings));
+  }
+
+  private final List<String> pruneFetches;
+  private final List<String> pruneFeeds;
+  private final Map<String, Output> inputMappings;
+}
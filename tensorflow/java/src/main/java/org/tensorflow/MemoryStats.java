@@ -0,0 +1,156 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A snapshot of the native memory held by live {@link Tensor}s.
+ *
+ * <p>Only Tensors created while memory tracking was enabled are accounted for, see {@link
+ * TensorFlow#enableMemoryTracking(boolean)} and {@link TensorFlow#memoryStats()}.
+ */
+public final class MemoryStats {
+
+  /** A number of Tensors and the total size of their data. */
+  public static final class Usage {
+    Usage(long count, long bytes) {
+      this.count = count;
+      this.bytes = bytes;
+    }
+
+    /** Returns the number of Tensors. */
+    public long count() {
+      return count;
+    }
+
+    /** Returns the total size, in bytes, of the data of the Tensors. */
+    public long bytes() {
+      return bytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d tensors, %d bytes", count, bytes);
+    }
+
+    private final long count;
+    private final long bytes;
+  }
+
+  /** Returns the usage of all live Tensors. */
+  public Usage total() {
+    return total;
+  }
+
+  /** Returns the usage of live Tensors, by {@link DataType}. */
+  public Map<DataType, Usage> byDataType() {
+    return byDataType;
+  }
+
+  /**
+   * Returns the usage of live Tensors, by the location in the calling code that created them.
+   *
+   * <p>Empty unless allocation sites were recorded when the Tensors were created.
+   */
+  public Map<String, Usage> byAllocationSite() {
+    return byAllocationSite;
+  }
+
+  /**
+   * Returns the number and size of Tensors that were garbage collected without being closed.
+   *
+   * <p>The memory of these Tensors is released by the memory tracker only if requested by {@link
+   * TensorFlow#enableMemoryTracking(boolean, boolean)}. Either way, they indicate a bug in the code
+   * that created them.
+   */
+  public Usage leaked() {
+    return leaked;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "MemoryStats(live: %s, byDataType: %s, leaked: %s)", total, byDataType, leaked);
+  }
+
+  // Accumulates the usage of individual Tensors into a MemoryStats.
+  static final class Builder {
+    void addLive(DataType dtype, String site, long bytes) {
+      count++;
+      totalBytes += bytes;
+      add(dtypeCounts, dtype, bytes);
+      if (site != null) {
+        add(siteCounts, site, bytes);
+      }
+    }
+
+    void setLeaked(long count, long bytes) {
+      leaked = new Usage(count, bytes);
+    }
+
+    MemoryStats build() {
+      Map<DataType, Usage> byDataType = new EnumMap<DataType, Usage>(DataType.class);
+      for (Map.Entry<DataType, long[]> e : dtypeCounts.entrySet()) {
+        byDataType.put(e.getKey(), new Usage(e.getValue()[0], e.getValue()[1]));
+      }
+      Map<String, Usage> bySite = new HashMap<String, Usage>();
+      for (Map.Entry<String, long[]> e : siteCounts.entrySet()) {
+        bySite.put(e.getKey(), new Usage(e.getValue()[0], e.getValue()[1]));
+      }
+      return new MemoryStats(
+          new Usage(count, totalBytes),
+          Collections.unmodifiableMap(byDataType),
+          Collections.unmodifiableMap(bySite),
+          leaked);
+    }
+
+    private static <K> void add(Map<K, long[]> m, K key, long bytes) {
+      long[] v = m.get(key);
+      if (v == null) {
+        v = new long[2];
+        m.put(key, v);
+      }
+      v[0]++;
+      v[1] += bytes;
+    }
+
+    private long count = 0;
+    private long totalBytes = 0;
+    private final Map<DataType, long[]> dtypeCounts = new EnumMap<DataType, long[]>(DataType.class);
+    private final Map<String, long[]> siteCounts = new HashMap<String, long[]>();
+    private Usage leaked = new Usage(0, 0);
+  }
+
+  private MemoryStats(
+      Usage total,
+      Map<DataType, Usage> byDataType,
+      Map<String, Usage> byAllocationSite,
+      Usage leaked) {
+    this.total = total;
+    this.byDataType = byDataType;
+    this.byAllocationSite = byAllocationSite;
+    this.leaked = leaked;
+  }
+
+  private final Usage total;
+  private final Map<DataType, Usage> byDataType;
+  private final Map<String, Usage> byAllocationSite;
+  private final Usage leaked;
+}
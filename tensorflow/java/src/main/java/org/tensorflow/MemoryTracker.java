@@ -0,0 +1,163 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounting of the native memory of live {@link Tensor}s, and detection of Tensors that are
+ * garbage collected without being closed.
+ *
+ * <p>Tracking is disabled by default, see {@link TensorFlow#enableMemoryTracking(boolean)}.
+ */
+final class MemoryTracker {
+  private static final boolean DEBUG =
+      System.getProperty("org.tensorflow.MemoryTracker.DEBUG") != null;
+
+  static void enable(boolean recordAllocationSites, boolean releaseLeakedMemory) {
+    recordSites = recordAllocationSites;
+    releaseLeaks = releaseLeakedMemory;
+    enabled = true;
+  }
+
+  static void disable() {
+    enabled = false;
+  }
+
+  // Returns the reference through which a newly created Tensor is tracked, or null if tracking is
+  // disabled.
+  static Ref track(Tensor t, long handle, DataType dtype) {
+    if (!enabled) {
+      return null;
+    }
+    collectLeaks();
+    Throwable site = recordSites ? new Throwable("Tensor allocated at") : null;
+    Ref r = new Ref(t, handle, dtype, t.numBytes(), site);
+    live.add(r);
+    return r;
+  }
+
+  static MemoryStats snapshot() {
+    collectLeaks();
+    MemoryStats.Builder b = new MemoryStats.Builder();
+    for (Ref r : live) {
+      b.addLive(r.dtype, r.site == null ? null : allocationSite(r.site), r.bytes);
+    }
+    b.setLeaked(leakedTensors.get(), leakedBytes.get());
+    return b.build();
+  }
+
+  // Tracks a single Tensor. The reference is enqueued if the Tensor becomes unreachable without
+  // release() having been called, i.e., without the Tensor having been closed.
+  static final class Ref extends PhantomReference<Tensor> {
+    Ref(Tensor t, long handle, DataType dtype, long bytes, Throwable site) {
+      super(t, queue);
+      this.handle = handle;
+      this.dtype = dtype;
+      this.bytes = bytes;
+      this.site = site;
+    }
+
+    // Invoked when the Tensor is closed.
+    void release() {
+      live.remove(this);
+      clear();
+    }
+
+    private final long handle;
+    private final DataType dtype;
+    private final long bytes;
+    private final Throwable site;
+  }
+
+  // Accounts for Tensors that were garbage collected without being closed, and frees their memory
+  // if requested. Freeing is opt-in, as the Tensor may have become unreachable while a native call
+  // on its memory was still in progress.
+  private static void collectLeaks() {
+    Ref r;
+    while ((r = (Ref) queue.poll()) != null) {
+      if (!live.remove(r)) {
+        continue;
+      }
+      leakedTensors.incrementAndGet();
+      leakedBytes.addAndGet(r.bytes);
+      if (releaseLeaks) {
+        Tensor.deleteHandle(r.handle);
+      }
+      if (!DEBUG) {
+        continue;
+      }
+      StringBuilder msg = new StringBuilder();
+      msg.append("org.tensorflow.MemoryTracker: ")
+          .append(r.dtype)
+          .append(" tensor with ")
+          .append(r.bytes)
+          .append(" bytes was garbage collected without being closed");
+      if (r.site == null) {
+        msg.append(" (enable the recording of allocation sites to find where it was created)");
+      } else {
+        for (StackTraceElement e : r.site.getStackTrace()) {
+          msg.append("\n\tat ").append(e);
+        }
+      }
+      System.err.println(msg);
+    }
+  }
+
+  // Returns the first frame of the stack trace that is outside the classes creating Tensors on
+  // behalf of their callers.
+  private static String allocationSite(Throwable site) {
+    for (StackTraceElement e : site.getStackTrace()) {
+      if (!isInternal(e.getClassName())) {
+        return e.toString();
+      }
+    }
+    return "<unknown>";
+  }
+
+  private static boolean isInternal(String className) {
+    for (String c : INTERNAL_CLASSES) {
+      if (className.equals(c) || className.startsWith(c + "$")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final String[] INTERNAL_CLASSES = {
+    MemoryTracker.class.getName(),
+    Tensor.class.getName(),
+    TensorPool.class.getName(),
+    Session.class.getName(),
+  };
+
+  private static volatile boolean enabled = false;
+  private static volatile boolean recordSites = false;
+  private static volatile boolean releaseLeaks = false;
+
+  private static final ReferenceQueue<Tensor> queue = new ReferenceQueue<Tensor>();
+  private static final Set<Ref> live =
+      Collections.newSetFromMap(new ConcurrentHashMap<Ref, Boolean>());
+  private static final AtomicLong leakedTensors = new AtomicLong();
+  private static final AtomicLong leakedBytes = new AtomicLong();
+
+  private MemoryTracker() {}
+}
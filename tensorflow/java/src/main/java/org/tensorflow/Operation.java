@@ -15,6 +15,8 @@ limitations under the License.
 
 package org.tensorflow;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * A Graph node that performs computation on Tensors.
  *
@@ -25,7 +27,9 @@ package org.tensorflow;
  * {@link Graph#close()} has been invoked, then methods on the Operation instance may fail with an
  * {@code IllegalStateException}.
  *
- * <p>Operation instances are immutable and thread-safe.
+ * <p>Operation instances are immutable and thread-safe. The name, type and outputs of an operation
+ * never change once it has been added to its Graph, so they are read from the native graph only
+ * once per instance.
  */
 public final class Operation {
 
@@ -39,12 +43,17 @@ public final class Operation {
 
   /** Returns the full name of the Operation. */
   public String name() {
-    Graph.Reference r = graph.ref();
-    try {
-      return name(unsafeNativeHandle);
-    } finally {
-      r.close();
+    String ret = name;
+    if (ret == null) {
+      Graph.Reference r = graph.ref();
+      try {
+        ret = name(unsafeNativeHandle);
+      } finally {
+        r.close();
+      }
+      name = ret;
     }
+    return ret;
   }
 
   /**
@@ -52,22 +61,32 @@ public final class Operation {
    * operation.
    */
   public String type() {
-    Graph.Reference r = graph.ref();
-    try {
-      return type(unsafeNativeHandle);
-    } finally {
-      r.close();
+    String ret = type;
+    if (ret == null) {
+      Graph.Reference r = graph.ref();
+      try {
+        ret = type(unsafeNativeHandle);
+      } finally {
+        r.close();
+      }
+      type = ret;
     }
+    return ret;
   }
 
   /** Returns the number of tensors produced by this operation. */
   public int numOutputs() {
-    Graph.Reference r = graph.ref();
-    try {
-      return numOutputs(unsafeNativeHandle);
-    } finally {
-      r.close();
+    int ret = numOutputs;
+    if (ret < 0) {
+      Graph.Reference r = graph.ref();
+      try {
+        ret = numOutputs(unsafeNativeHandle);
+      } finally {
+        r.close();
+      }
+      numOutputs = ret;
     }
+    return ret;
   }
 
   /**
@@ -170,30 +189,64 @@ public final class Operation {
     return unsafeNativeHandle;
   }
 
+  // Package private, the Graph this operation belongs to.
+  Graph graph() {
+    return graph;
+  }
+
   // Package private, meant primarily for the public Output.shape() method.
-  long[] shape(int output) {
-    Graph.Reference r = graph.ref();
-    try {
-      return shape(r.nativeHandle(), unsafeNativeHandle, output);
-    } finally {
-      r.close();
+  Shape shape(int output) {
+    AtomicReferenceArray<Shape> cache = shapes;
+    if (cache == null) {
+      cache = new AtomicReferenceArray<Shape>(numOutputs());
+      shapes = cache;
+    }
+    // Out of range indices are left to the native call, which rejects them.
+    Shape ret = output >= 0 && output < cache.length() ? cache.get(output) : null;
+    if (ret == null) {
+      Graph.Reference r = graph.ref();
+      try {
+        ret = new Shape(shape(r.nativeHandle(), unsafeNativeHandle, output));
+      } finally {
+        r.close();
+      }
+      cache.set(output, ret);
     }
+    return ret;
   }
 
   // Package private, meant primarily for the public Output.dataType() method.
   DataType dtype(int output) {
-    Graph.Reference r = graph.ref();
-    try {
-      return DataType.fromC(dtype(r.nativeHandle(), unsafeNativeHandle, output));
-    } finally {
-      r.close();
+    AtomicReferenceArray<DataType> cache = dtypes;
+    if (cache == null) {
+      cache = new AtomicReferenceArray<DataType>(numOutputs());
+      dtypes = cache;
+    }
+    DataType ret = output >= 0 && output < cache.length() ? cache.get(output) : null;
+    if (ret == null) {
+      Graph.Reference r = graph.ref();
+      try {
+        ret = DataType.fromC(dtype(r.nativeHandle(), unsafeNativeHandle, output));
+      } finally {
+        r.close();
+      }
+      cache.set(output, ret);
     }
+    return ret;
   }
 
   private final long unsafeNativeHandle;
 
   private final Graph graph;
 
+  // Lazily read from the native operation. Concurrent first calls may each read a value, but they
+  // all read the same one.
+  private volatile String name;
+  private volatile String type;
+  private volatile int numOutputs = -1;
+  private volatile AtomicReferenceArray<Shape> shapes;
+  private volatile AtomicReferenceArray<DataType> dtypes;
+
   private static native String name(long handle);
 
   private static native String type(long handle);
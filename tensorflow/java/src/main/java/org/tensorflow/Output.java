@@ -46,7 +46,7 @@ public final class Output implements Operand {
 
   /** Returns the (possibly partially known) shape of the tensor referred to by this Output. */
   public Shape shape() {
-    return new Shape(operation.shape(index));
+    return operation.shape(index);
   }
 
   /** Returns the DataType of the tensor referred to by this Output. */
@@ -0,0 +1,191 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+
+/**
+ * Minimal decoder of the <a
+ * href="https://developers.google.com/protocol-buffers/docs/encoding">protocol buffer wire
+ * format</a>, the counterpart of {@link ProtoWriter}.
+ *
+ * <p>Fields are visited in order, and each must be either read or skipped before the next one:
+ *
+ * <pre>{@code
+ * ProtoReader r = new ProtoReader(bytes);
+ * while (r.next()) {
+ *   switch (r.field()) {
+ *     case 1: name = r.readString(); break;
+ *     default: r.skip();
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Malformed input is reported with an {@link IllegalArgumentException}.
+ *
+ * <p>Public only so that the other packages of this library, such as {@code
+ * org.tensorflow.profile}, share a single decoder. Not intended for use by applications.
+ */
+public final class ProtoReader {
+
+  public ProtoReader(byte[] buf) {
+    this(buf, 0, buf.length);
+  }
+
+  ProtoReader(byte[] buf, int start, int end) {
+    this.buf = buf;
+    this.pos = start;
+    this.end = end;
+  }
+
+  /** Advance to the next field, returning false at the end of the message. */
+  public boolean next() {
+    if (pos >= end) {
+      return false;
+    }
+    fieldStart = pos;
+    long tag = readRawVarint();
+    field = (int) (tag >>> 3);
+    wireType = (int) (tag & 7);
+    if (field == 0) {
+      throw malformed();
+    }
+    return true;
+  }
+
+  /** Returns the number of the current field. */
+  public int field() {
+    return field;
+  }
+
+  /** Returns the offset of the tag of the current field. */
+  int fieldStart() {
+    return fieldStart;
+  }
+
+  /** Returns the offset following the last field read or skipped. */
+  int position() {
+    return pos;
+  }
+
+  /** Read the current field as an integer, boolean or enum. */
+  public long readVarint() {
+    expect(WIRETYPE_VARINT);
+    return readRawVarint();
+  }
+
+  /** Read the current field as a string. */
+  public String readString() {
+    expect(WIRETYPE_LENGTH_DELIMITED);
+    int length = readLength();
+    String ret = new String(buf, pos, length, UTF_8);
+    pos += length;
+    return ret;
+  }
+
+  /** Read the current field as bytes or an embedded message. */
+  byte[] readBytes() {
+    expect(WIRETYPE_LENGTH_DELIMITED);
+    int length = readLength();
+    byte[] ret = Arrays.copyOfRange(buf, pos, pos + length);
+    pos += length;
+    return ret;
+  }
+
+  /** Returns a reader of the current field, an embedded message. */
+  public ProtoReader readMessage() {
+    expect(WIRETYPE_LENGTH_DELIMITED);
+    int length = readLength();
+    ProtoReader ret = new ProtoReader(buf, pos, pos + length);
+    pos += length;
+    return ret;
+  }
+
+  /** Skip the value of the current field. */
+  public void skip() {
+    switch (wireType) {
+      case WIRETYPE_VARINT:
+        readRawVarint();
+        break;
+      case WIRETYPE_FIXED64:
+        advance(8);
+        break;
+      case WIRETYPE_LENGTH_DELIMITED:
+        advance(readLength());
+        break;
+      case WIRETYPE_FIXED32:
+        advance(4);
+        break;
+      default:
+        throw malformed();
+    }
+  }
+
+  private void expect(int type) {
+    if (wireType != type) {
+      throw new IllegalArgumentException(
+          String.format("field %d has wire type %d, expected %d", field, wireType, type));
+    }
+  }
+
+  private int readLength() {
+    long length = readRawVarint();
+    if (length < 0 || length > end - pos) {
+      throw malformed();
+    }
+    return (int) length;
+  }
+
+  private void advance(int n) {
+    if (n > end - pos) {
+      throw malformed();
+    }
+    pos += n;
+  }
+
+  private long readRawVarint() {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (pos >= end) {
+        throw malformed();
+      }
+      byte b = buf[pos++];
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw malformed();
+  }
+
+  private static IllegalArgumentException malformed() {
+    return new IllegalArgumentException("malformed protocol buffer");
+  }
+
+  private static final int WIRETYPE_VARINT = 0;
+  private static final int WIRETYPE_FIXED64 = 1;
+  private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+  private static final int WIRETYPE_FIXED32 = 5;
+
+  private final byte[] buf;
+  private final int end;
+  private int pos;
+  private int fieldStart = 0;
+  private int field = 0;
+  private int wireType = 0;
+}
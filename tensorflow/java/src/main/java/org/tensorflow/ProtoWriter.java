@@ -0,0 +1,85 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Minimal encoder of the <a
+ * href="https://developers.google.com/protocol-buffers/docs/encoding">protocol buffer wire
+ * format</a>.
+ *
+ * <p>Used to serialize the few configuration messages exposed by this package without depending on
+ * a protocol buffer runtime.
+ */
+final class ProtoWriter {
+
+  /** Write an integer, boolean or enum field. */
+  ProtoWriter writeVarint(int field, long value) {
+    writeTag(field, WIRETYPE_VARINT);
+    writeRawVarint(value);
+    return this;
+  }
+
+  /** Write a boolean field. */
+  ProtoWriter writeBool(int field, boolean value) {
+    return writeVarint(field, value ? 1 : 0);
+  }
+
+  /** Write a string field. */
+  ProtoWriter writeString(int field, String value) {
+    return writeBytes(field, value.getBytes(UTF_8));
+  }
+
+  /** Write a bytes or embedded message field. */
+  ProtoWriter writeBytes(int field, byte[] value) {
+    writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+    writeRawVarint(value.length);
+    out.write(value, 0, value.length);
+    return this;
+  }
+
+  /** Write already encoded fields. */
+  ProtoWriter writeRaw(byte[] buf, int offset, int length) {
+    out.write(buf, offset, length);
+    return this;
+  }
+
+  byte[] toByteArray() {
+    return out.toByteArray();
+  }
+
+  private void writeTag(int field, int wireType) {
+    writeRawVarint((field << 3) | wireType);
+  }
+
+  // Negative values, including negative enum values, are encoded in 10 bytes as their 64-bit two's
+  // complement.
+  private void writeRawVarint(long value) {
+    while ((value & ~0x7fL) != 0) {
+      out.write((int) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static final int WIRETYPE_VARINT = 0;
+  private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+}
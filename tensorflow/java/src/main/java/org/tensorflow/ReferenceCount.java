@@ -0,0 +1,106 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the users of a native object, so that it is freed only once none of them remain.
+ *
+ * <p>The count and a closed flag share a single atomic word: {@link #acquire()} and {@link
+ * #release()} are a compare-and-set each and never block, which keeps many threads using a {@link
+ * Graph} or {@link Session} concurrently from contending on a monitor. Only {@link #close()} waits,
+ * and only while users remain:
+ *
+ * <pre>{@code
+ * if (!refs.acquire()) {
+ *   throw new IllegalStateException("close() has been called");
+ * }
+ * try {
+ *   use(nativeHandle);
+ * } finally {
+ *   refs.release();
+ * }
+ * }</pre>
+ */
+final class ReferenceCount {
+
+  /** Count a new user, returning false if {@link #close()} has been called. */
+  boolean acquire() {
+    while (true) {
+      long s = state.get();
+      if ((s & CLOSED) != 0) {
+        return false;
+      }
+      if (state.compareAndSet(s, s + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** Release a user counted by a successful {@link #acquire()}. */
+  void release() {
+    if (state.decrementAndGet() == CLOSED) {
+      // The last user of a closing object.
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Prevent new users, then wait for the current ones to release the object.
+   *
+   * <p>Returns true if the caller should free the native object, or false if another call to close
+   * already did or is waiting to. Waiting is not interruptible: an interrupt is only recorded, as
+   * giving up would leak the native object.
+   */
+  boolean close() {
+    while (true) {
+      long s = state.get();
+      if ((s & CLOSED) != 0) {
+        return false;
+      }
+      if (state.compareAndSet(s, s | CLOSED)) {
+        break;
+      }
+    }
+    boolean interrupted = false;
+    synchronized (this) {
+      while (state.get() != CLOSED) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return true;
+  }
+
+  /** Returns true if {@link #close()} has been called. */
+  boolean isClosed() {
+    return (state.get() & CLOSED) != 0;
+  }
+
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  // The number of users, with the sign bit set once close() has been called.
+  private final AtomicLong state = new AtomicLong();
+}
@@ -0,0 +1,115 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options for a single execution of a {@link Session}.
+ *
+ * <p>A type-safe subset of the <a
+ * href="https://www.tensorflow.org/code/tensorflow/core/protobuf/config.proto">RunOptions</a>
+ * protocol buffer. For example, to collect execution statistics in the metadata returned by
+ * {@link Session.Runner#runAndFetchMetadata()}:
+ *
+ * <pre>{@code
+ * RunOptions options = RunOptions.builder().traceLevel(RunOptions.TraceLevel.FULL_TRACE).build();
+ * Session.Run r = session.runner().fetch("y").setOptions(options).runAndFetchMetadata();
+ * }</pre>
+ *
+ * <p>Options that are not set keep the TensorFlow defaults. Instances are immutable.
+ */
+public final class RunOptions {
+
+  /** The execution statistics to collect in the run metadata. */
+  public enum TraceLevel {
+    NO_TRACE,
+    SOFTWARE_TRACE,
+    HARDWARE_TRACE,
+    FULL_TRACE
+  }
+
+  /** Create a builder of RunOptions, with all options unset. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Builder of {@link RunOptions}. */
+  public static final class Builder {
+    /** Set the execution statistics to collect. */
+    public Builder traceLevel(TraceLevel level) {
+      traceLevel = level;
+      return this;
+    }
+
+    /** Set the time after which the run fails if it has not completed. */
+    public Builder timeout(long duration, TimeUnit unit) {
+      timeoutMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /**
+     * Set the inter-op thread pool that executes the run, as an index into the pools added by
+     * {@link SessionOptions.Builder#addSessionInterOpThreadPool(int, String)}.
+     */
+    public Builder interOpThreadPool(int index) {
+      interOpThreadPool = SessionOptions.checkNonNegative("interOpThreadPool", index);
+      return this;
+    }
+
+    /** Set whether the partitioned graphs executed by the run are returned in its metadata. */
+    public Builder outputPartitionGraphs(boolean value) {
+      outputPartitionGraphs = value;
+      return this;
+    }
+
+    /** Create the RunOptions. */
+    public RunOptions build() {
+      ProtoWriter options = new ProtoWriter();
+      if (traceLevel != null) {
+        options.writeVarint(1, traceLevel.ordinal());
+      }
+      if (timeoutMillis != null) {
+        options.writeVarint(2, timeoutMillis);
+      }
+      if (interOpThreadPool != null) {
+        options.writeVarint(3, interOpThreadPool);
+      }
+      if (outputPartitionGraphs != null) {
+        options.writeBool(5, outputPartitionGraphs);
+      }
+      return new RunOptions(options.toByteArray());
+    }
+
+    private Builder() {}
+
+    private TraceLevel traceLevel = null;
+    private Long timeoutMillis = null;
+    private Integer interOpThreadPool = null;
+    private Boolean outputPartitionGraphs = null;
+  }
+
+  /** Returns the options as a serialized RunOptions protocol buffer. */
+  public byte[] toByteArray() {
+    return options.clone();
+  }
+
+  private RunOptions(byte[] options) {
+    this.options = options;
+  }
+
+  private final byte[] options;
+}
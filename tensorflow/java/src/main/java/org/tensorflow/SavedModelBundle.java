@@ -15,6 +15,10 @@ limitations under the License.
 
 package org.tensorflow;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * SavedModelBundle represents a model loaded from storage.
  *
@@ -61,6 +65,40 @@ public class SavedModelBundle implements AutoCloseable {
     return session;
   }
 
+  /**
+   * Warm up the session of the model with synthesized inputs, see {@link Session.Runner#warmUp()}.
+   *
+   * <p>Each feed is given a tensor of zeros (or empty strings) of its declared type and shape,
+   * with dimensions of unknown size set to 1. Models whose latency depends on the input values
+   * are better warmed up with representative feeds through {@link Session.Runner#warmUp()}.
+   *
+   * @param feeds names of the outputs to feed, such as the inputs of a {@code SignatureDef}
+   * @param fetches names of the outputs to fetch
+   * @param maxRuns the maximum number of executions
+   * @throws IllegalArgumentException if a feed does not exist or has a shape of unknown rank
+   */
+  public Session.WarmUpStats warmUp(
+      Collection<String> feeds, Collection<String> fetches, int maxRuns) {
+    List<Tensor> inputs = new ArrayList<Tensor>(feeds.size());
+    try {
+      Session.Runner runner = session.runner();
+      for (String name : feeds) {
+        Output o = session.parseOutput(name);
+        Tensor t = Tensor.zeros(o.dataType(), synthesizedShape(name, o.shape()));
+        inputs.add(t);
+        runner.feed(o, t);
+      }
+      for (String name : fetches) {
+        runner.fetch(name);
+      }
+      return runner.warmUp(maxRuns);
+    } finally {
+      for (Tensor t : inputs) {
+        t.close();
+      }
+    }
+  }
+
   /**
    * Releases resources (the {@link Graph} and {@link Session}) associated with the saved model
    * bundle.
@@ -94,6 +132,18 @@ public class SavedModelBundle implements AutoCloseable {
     return new SavedModelBundle(graph, session, metaGraphDef);
   }
 
+  private static long[] synthesizedShape(String name, Shape shape) {
+    if (shape.numDimensions() < 0) {
+      throw new IllegalArgumentException(
+          "cannot synthesize a value for [" + name + "], whose shape has an unknown rank");
+    }
+    long[] dims = new long[shape.numDimensions()];
+    for (int i = 0; i < dims.length; ++i) {
+      dims[i] = shape.size(i) < 0 ? 1 : shape.size(i);
+    }
+    return dims;
+  }
+
   private static native SavedModelBundle load(String exportDir, String[] tags, byte[] runOptions);
 
   static {
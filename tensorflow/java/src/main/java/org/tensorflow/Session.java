@@ -15,8 +15,20 @@ limitations under the License.
 
 package org.tensorflow;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Driver for {@link Graph} execution.
@@ -49,7 +61,7 @@ public final class Session implements AutoCloseable {
 
   /** Construct a new session with the associated {@link Graph}. */
   public Session(Graph g) {
-    this(g, null);
+    this(g, (byte[]) null);
   }
 
   /**
@@ -74,6 +86,16 @@ public final class Session implements AutoCloseable {
     }
   }
 
+  /**
+   * Construct a new session with the associated {@link Graph} and configuration options.
+   *
+   * @param g The {@link Graph} the created Session will operate on.
+   * @param options Configuration of the session.
+   */
+  public Session(Graph g, SessionOptions options) {
+    this(g, options.toByteArray());
+  }
+
   /** Wrap an existing session with the associated {@link Graph}. */
   Session(Graph g, long nativeHandle) {
     graph = g;
@@ -84,30 +106,65 @@ public final class Session implements AutoCloseable {
   /**
    * Release resources associated with the Session.
    *
-   * <p>Blocks until there are no active executions ({@link Session.Runner#run()} calls). A Session
-   * is not usable after close returns.
+   * <p>Blocks until there are no active executions ({@link Session.Runner#run()} calls and pending
+   * {@link Session.Runner#runAsync()} runs). A Session is not usable after close returns.
    */
   @Override
   public void close() {
+    if (!runs.close()) {
+      return;
+    }
+    delete(nativeHandle);
+    nativeHandle = 0;
+    // The Graph may only be closed once the session no longer refers to it.
     graphRef.close();
-    synchronized (nativeHandleLock) {
-      if (nativeHandle == 0) {
-        return;
+    synchronized (asyncLock) {
+      if (asyncExecutor != null) {
+        asyncExecutor.shutdown();
+        asyncExecutor = null;
       }
-      while (numActiveRuns > 0) {
-        try {
-          nativeHandleLock.wait();
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          // Possible leak of the Session and Graph in this case?
-          return;
-        }
-      }
-      delete(nativeHandle);
-      nativeHandle = 0;
     }
   }
 
+  /**
+   * What {@link Runner#runAsync()} does when the Session already has the maximum number of pending
+   * asynchronous runs.
+   */
+  public enum RejectionPolicy {
+    /** Throw a {@link RejectedExecutionException}. */
+    ABORT,
+    /** Execute the run in the calling thread, returning a completed {@link Future}. */
+    CALLER_RUNS,
+    /** Block the calling thread until a pending run completes. */
+    BLOCK
+  }
+
+  /**
+   * Limit the number of asynchronous runs of this Session that are queued or executing.
+   *
+   * <p>By default, at most {@value #DEFAULT_MAX_PENDING_ASYNC_RUNS} runs may be pending, and
+   * further calls to {@link Runner#runAsync()} are rejected with {@link RejectionPolicy#ABORT}.
+   *
+   * @param maxPendingRuns the maximum number of pending asynchronous runs, at least 1
+   * @param policy what to do with runs submitted while {@code maxPendingRuns} are pending
+   */
+  public void setAsyncLimits(int maxPendingRuns, RejectionPolicy policy) {
+    if (maxPendingRuns < 1) {
+      throw new IllegalArgumentException("maxPendingRuns must be positive, got " + maxPendingRuns);
+    }
+    if (policy == null) {
+      throw new NullPointerException("policy");
+    }
+    synchronized (asyncLock) {
+      maxPendingAsyncRuns = maxPendingRuns;
+      asyncRejectionPolicy = policy;
+      asyncLock.notifyAll();
+    }
+  }
+
+  /** The default limit on pending asynchronous runs, see {@link #setAsyncLimits}. */
+  public static final int DEFAULT_MAX_PENDING_ASYNC_RUNS = 64;
+
   /**
    * Run {@link Operation}s and evaluate {@link Tensor}s.
    *
@@ -180,7 +237,7 @@ public final class Session implements AutoCloseable {
     public Runner fetch(String operation, int index) {
       Operation op = operationByName(operation);
       if (op != null) {
-        outputs.add(op.output(index));
+        fetch(op.output(index));
       }
       return this;
     }
@@ -188,6 +245,39 @@ public final class Session implements AutoCloseable {
     /** Makes {@link #run()} return the Tensor referred to by {@code output}. */
     public Runner fetch(Output output) {
       outputs.add(output);
+      destinations.add(null);
+      return this;
+    }
+
+    /**
+     * Make {@link #run()} copy the value of {@code output} into {@code dst}.
+     *
+     * <p>The value is copied if it has the same {@link DataType} and shape as {@code dst}, and
+     * {@code dst} owns its memory. The element of the list returned by {@link #run()} for this
+     * fetch is then {@code null}. Otherwise, for example when the shape of the value is only known
+     * once the graph is executed, or when {@code dst} was created by {@link Tensor#wrap}, {@link
+     * Tensor#fromMappedFile} or {@link Tensor#slice}, {@code dst} is left unmodified and the
+     * element is a new {@link Tensor} holding the value, as with {@link #fetch(Output)}.
+     */
+    public Runner fetchInto(Output output, Tensor dst) {
+      outputs.add(output);
+      destinations.add(dst);
+      return this;
+    }
+
+    /**
+     * Make {@link #run()} copy the value of {@code output}, a {@link DataType#FLOAT} tensor, into
+     * {@code dst}.
+     *
+     * <p>The elements are written at the position of {@code dst}, which is advanced past them. The
+     * element of the list returned by {@link #run()} for this fetch is then {@code null}. If the
+     * value is not a float tensor or {@code dst} has fewer remaining elements than the value,
+     * {@code dst} is left unmodified and the element is a new {@link Tensor} holding the value, as
+     * with {@link #fetch(Output)}.
+     */
+    public Runner fetchInto(Output output, FloatBuffer dst) {
+      outputs.add(output);
+      destinations.add(dst);
       return this;
     }
 
@@ -229,12 +319,36 @@ public final class Session implements AutoCloseable {
       return this;
     }
 
+    /** Set options for this run, see {@link RunOptions}. */
+    public Runner setOptions(RunOptions options) {
+      return setOptions(options.toByteArray());
+    }
+
+    /**
+     * Abort the run if it has not completed within {@code duration}.
+     *
+     * <p>The TensorFlow runtime cancels the pending operations of a run that exceeds its deadline,
+     * and {@link #run()} then throws a {@link DeadlineExceededException}. This overrides any
+     * timeout set with {@link #setOptions}.
+     *
+     * @throws IllegalArgumentException if {@code duration} is not positive
+     */
+    public Runner withTimeout(long duration, TimeUnit unit) {
+      long millis = unit.toMillis(duration);
+      if (millis <= 0) {
+        throw new IllegalArgumentException(
+            "timeout must be at least one millisecond, got " + duration + " " + unit);
+      }
+      timeoutMillis = millis;
+      return this;
+    }
+
     /**
      * Execute the graph fragments necessary to compute all requested fetches.
      *
      * <p><b>WARNING:</b> The caller assumes ownership of all returned {@link Tensor}s, i.e., the
      * caller must call {@link Tensor#close()} on all elements of the returned list to free up
-     * resources.
+     * resources. Elements for values copied by {@link #fetchInto(Output, Tensor)} are {@code null}.
      *
      * <p>TODO(ashankar): Reconsider the return type here. Two things in particular: (a) Make it
      * easier for the caller to cleanup (perhaps returning something like AutoCloseableList in
@@ -245,6 +359,106 @@ public final class Session implements AutoCloseable {
       return runHelper(false).outputs;
     }
 
+    /**
+     * Execute the graph fragments necessary to compute all requested fetches in a thread owned by
+     * the Session.
+     *
+     * <p>Like {@link #runAsync(Executor)}, with a pool of daemon threads, one per available
+     * processor, that is shut down when the Session is closed.
+     */
+    public Future<List<Tensor>> runAsync() {
+      return runAsync(defaultExecutor());
+    }
+
+    /**
+     * Execute the graph fragments necessary to compute all requested fetches using {@code
+     * executor}.
+     *
+     * <p>The run counts as active from the time it is submitted: {@link Session#close()} waits for
+     * it, so {@code executor} must not be shut down before the run completes. The Runner may be
+     * reused or modified once this method returns. The number of pending runs is limited as
+     * configured by {@link Session#setAsyncLimits(int, RejectionPolicy)}.
+     *
+     * <p>Cancelling the returned {@link Future} before the run starts keeps it from executing. A
+     * run that has started cannot be interrupted, but the future completes immediately and the
+     * outputs are closed once the run ends; use {@link #withTimeout} to bound its duration.
+     *
+     * <p><b>WARNING:</b> The caller assumes ownership of all {@link Tensor}s in the result, as with
+     * {@link #run()}.
+     *
+     * @throws RejectedExecutionException if the run is rejected by the {@link RejectionPolicy} or
+     *     by {@code executor}
+     * @throws IllegalStateException if the Session has been closed
+     */
+    public Future<List<Tensor>> runAsync(Executor executor) {
+      final Runner snapshot = copy();
+      if (!admitAsync()) {
+        // RejectionPolicy.CALLER_RUNS
+        AsyncRun task = new AsyncRun(snapshot, false);
+        task.run();
+        return task;
+      }
+      AsyncRun task = new AsyncRun(snapshot, true);
+      try {
+        executor.execute(task);
+      } catch (RuntimeException e) {
+        task.releaseIfPending();
+        throw e;
+      }
+      return task;
+    }
+
+    /**
+     * Execute the graph fragments repeatedly, until their latency stabilizes.
+     *
+     * <p>The first executions of a graph are typically much slower than later ones, as kernels are
+     * created, memory allocators grow and constants are folded. Warming up a Session with
+     * representative feeds before serving requests moves that cost out of the first requests.
+     *
+     * <p>Equivalent to {@code warmUp(100)}.
+     */
+    public WarmUpStats warmUp() {
+      return warmUp(100);
+    }
+
+    /**
+     * Execute the graph fragments repeatedly, until their latency stabilizes or {@code maxRuns}
+     * executions have completed.
+     *
+     * <p>The latency is considered stable once the last {@value WarmUpStats#WINDOW} executions
+     * are within 10% of each other. The fetched {@link Tensor}s are closed.
+     *
+     * @throws IllegalArgumentException if {@code maxRuns} is not positive
+     */
+    public WarmUpStats warmUp(int maxRuns) {
+      if (maxRuns < 1) {
+        throw new IllegalArgumentException("maxRuns must be positive, got " + maxRuns);
+      }
+      long[] window = new long[WarmUpStats.WINDOW];
+      long coldNanos = 0;
+      int n = 0;
+      while (n < maxRuns) {
+        long start = System.nanoTime();
+        for (Tensor t : run()) {
+          if (t != null) {
+            t.close();
+          }
+        }
+        long nanos = System.nanoTime() - start;
+        if (n == 0) {
+          coldNanos = nanos;
+        }
+        window[n % window.length] = nanos;
+        ++n;
+        // The first, cold, execution does not count towards stability.
+        if (n > window.length && WarmUpStats.isStable(window)) {
+          return new WarmUpStats(n, coldNanos, WarmUpStats.median(window), true);
+        }
+      }
+      int k = Math.min(n, window.length);
+      return new WarmUpStats(n, coldNanos, WarmUpStats.median(Arrays.copyOf(window, k)), false);
+    }
+
     /**
      * Execute graph fragments to compute requested fetches and return metadata about the run.
      *
@@ -288,13 +502,19 @@ public final class Session implements AutoCloseable {
       for (Operation op : targets) {
         targetOpHandles[idx++] = op.getUnsafeNativeHandle();
       }
+      byte[] options = runOptions;
+      if (timeoutMillis > 0) {
+        // Of repeated occurrences of a field in serialized protocol buffers, the last one wins.
+        byte[] timeout = new ProtoWriter().writeVarint(2, timeoutMillis).toByteArray();
+        options = options == null ? timeout : concat(options, timeout);
+      }
       Reference runRef = new Reference();
       byte[] metadata = null;
       try {
         metadata =
             Session.run(
                 nativeHandle,
-                runOptions,
+                options,
                 inputTensorHandles,
                 inputOpHandles,
                 inputOpIndices,
@@ -318,67 +538,485 @@ public final class Session implements AutoCloseable {
           throw e;
         }
       }
+      try {
+        for (int i = 0; i < destinations.size(); ++i) {
+          Object dst = destinations.get(i);
+          Tensor t = outputs.get(i);
+          if (dst != null && storeInto(t, dst)) {
+            t.close();
+            outputs.set(i, null);
+          }
+        }
+      } catch (Exception e) {
+        for (Tensor t : outputs) {
+          if (t != null) {
+            t.close();
+          }
+        }
+        outputs.clear();
+        throw e;
+      }
       Run ret = new Run();
       ret.outputs = outputs;
       ret.metadata = metadata;
       return ret;
     }
 
+    // Copies the value of t into dst, a Tensor or FloatBuffer given to fetchInto(). Returns false
+    // if dst cannot hold the value.
+    private boolean storeInto(Tensor t, Object dst) {
+      if (dst instanceof Tensor) {
+        return t.copyInto((Tensor) dst);
+      }
+      FloatBuffer buf = (FloatBuffer) dst;
+      if (t.dataType() != DataType.FLOAT || buf.remaining() < t.numElements()) {
+        return false;
+      }
+      t.writeTo(buf);
+      return true;
+    }
+
+    private byte[] concat(byte[] a, byte[] b) {
+      byte[] ret = Arrays.copyOf(a, a.length + b.length);
+      System.arraycopy(b, 0, ret, a.length, b.length);
+      return ret;
+    }
+
+    private Runner copy() {
+      Runner r = new Runner();
+      r.inputs.addAll(inputs);
+      r.inputTensors.addAll(inputTensors);
+      r.outputs.addAll(outputs);
+      r.destinations.addAll(destinations);
+      r.targets.addAll(targets);
+      r.runOptions = runOptions;
+      r.timeoutMillis = timeoutMillis;
+      return r;
+    }
+
     private class Reference implements AutoCloseable {
       public Reference() {
-        synchronized (nativeHandleLock) {
-          if (nativeHandle == 0) {
-            throw new IllegalStateException("run() cannot be called on the Session after close()");
-          }
-          ++numActiveRuns;
-        }
+        acquireRun();
       }
 
       @Override
       public void close() {
-        synchronized (nativeHandleLock) {
-          if (nativeHandle == 0) {
-            return;
+        releaseRun();
+      }
+    }
+
+    private ArrayList<Output> inputs = new ArrayList<Output>();
+    private ArrayList<Tensor> inputTensors = new ArrayList<Tensor>();
+    private ArrayList<Output> outputs = new ArrayList<Output>();
+    // For each element of outputs, null or the destination given to fetchInto().
+    private ArrayList<Object> destinations = new ArrayList<Object>();
+    private ArrayList<Operation> targets = new ArrayList<Operation>();
+    private byte[] runOptions = null;
+    private long timeoutMillis = 0;
+  }
+
+  /** Create a Runner to execute graph operations and evaluate Tensors. */
+  public Runner runner() {
+    return new Runner();
+  }
+
+  /**
+   * Prepare a reusable {@link Callable} that feeds {@code feeds}, fetches {@code fetches} and
+   * executes {@code targets}.
+   *
+   * <p>The operations are resolved once, when the Callable is created, so that each {@link
+   * Callable#call(Tensor...)} only crosses the JNI boundary to execute the graph. Prefer this to
+   * {@link #runner()} when the same graph fragment is executed repeatedly.
+   *
+   * @param feeds the outputs whose values are provided to each call, in order
+   * @param fetches the outputs whose values are returned by each call, in order
+   * @param targets operations to execute without returning any evaluated {@link Tensor}s
+   */
+  public Callable prepare(List<Output> feeds, List<Output> fetches, List<Operation> targets) {
+    return new Callable(feeds, fetches, targets);
+  }
+
+  /**
+   * Like {@link #prepare(List, List, List)}, with feeds, fetches and targets identified by name.
+   *
+   * <p>Feeds and fetches may be of the form <tt>operation_name:output_index</tt>, as with {@link
+   * Runner#feed(String, Tensor)} and {@link Runner#fetch(String)}.
+   *
+   * @throws IllegalArgumentException if any of the named operations is not in the {@link Graph}
+   */
+  public Callable prepare(
+      Collection<String> feeds, Collection<String> fetches, Collection<String> targets) {
+    List<Output> feedOutputs = new ArrayList<Output>(feeds.size());
+    for (String name : feeds) {
+      feedOutputs.add(parseOutput(name));
+    }
+    List<Output> fetchOutputs = new ArrayList<Output>(fetches.size());
+    for (String name : fetches) {
+      fetchOutputs.add(parseOutput(name));
+    }
+    List<Operation> targetOps = new ArrayList<Operation>(targets.size());
+    for (String name : targets) {
+      targetOps.add(operationByName(name));
+    }
+    return new Callable(feedOutputs, fetchOutputs, targetOps);
+  }
+
+  /**
+   * A graph fragment prepared for repeated execution, with a fixed set of feeds, fetches and
+   * targets.
+   *
+   * <p>Created by {@link Session#prepare(List, List, List)}. Instances are thread-safe and remain
+   * usable until the Session is closed.
+   */
+  public final class Callable {
+    /** The number of {@link Tensor}s each call must be fed. */
+    public int numFeeds() {
+      return feedOpHandles.length;
+    }
+
+    /** The number of {@link Tensor}s each call produces. */
+    public int numFetches() {
+      return fetchOpHandles.length;
+    }
+
+    /**
+     * Execute the prepared graph fragment.
+     *
+     * <p><b>WARNING:</b> The caller assumes ownership of all returned {@link Tensor}s.
+     *
+     * @param feeds the values of the feeds, in the order they were given to {@code prepare}
+     * @return the values of the fetches, in the order they were given to {@code prepare}
+     * @throws IllegalArgumentException if the number of feeds does not match {@link #numFeeds()}
+     */
+    public List<Tensor> call(Tensor... feeds) {
+      Tensor[] outputs = new Tensor[fetchOpHandles.length];
+      call(feeds, outputs);
+      return Arrays.asList(outputs);
+    }
+
+    /**
+     * Execute the prepared graph fragment, storing the fetched values in {@code outputs}.
+     *
+     * <p>Apart from the returned {@link Tensor} objects, this allocates no memory on the Java
+     * heap. The caller assumes ownership of the {@link Tensor}s stored in {@code outputs}; any
+     * previous elements are overwritten without being closed.
+     *
+     * @param feeds the values of the feeds, in the order they were given to {@code prepare}
+     * @param outputs receives the values of the fetches, in the order they were given to {@code
+     *     prepare}
+     * @throws IllegalArgumentException if the number of feeds does not match {@link #numFeeds()},
+     *     or {@code outputs} has fewer than {@link #numFetches()} elements
+     */
+    public void call(Tensor[] feeds, Tensor[] outputs) {
+      if (feeds.length != feedOpHandles.length) {
+        throw new IllegalArgumentException(
+            String.format("expected %d feeds, got %d", feedOpHandles.length, feeds.length));
+      }
+      if (outputs.length < fetchOpHandles.length) {
+        throw new IllegalArgumentException(
+            String.format(
+                "cannot store %d fetches in an array of length %d",
+                fetchOpHandles.length, outputs.length));
+      }
+      HandleBuffers buffers = handleBuffers.get();
+      for (int i = 0; i < feeds.length; ++i) {
+        buffers.inputs[i] = feeds[i].getNativeHandle();
+      }
+      acquireRun();
+      try {
+        Session.run(
+            nativeHandle,
+            null,
+            buffers.inputs,
+            feedOpHandles,
+            feedOpIndices,
+            fetchOpHandles,
+            fetchOpIndices,
+            targetOpHandles,
+            false,
+            buffers.outputs);
+      } finally {
+        releaseRun();
+      }
+      for (int i = 0; i < fetchOpHandles.length; ++i) {
+        try {
+          outputs[i] = Tensor.fromHandle(buffers.outputs[i]);
+        } catch (RuntimeException e) {
+          for (int j = 0; j < i; ++j) {
+            outputs[j].close();
+            outputs[j] = null;
           }
-          if (--numActiveRuns == 0) {
-            nativeHandleLock.notifyAll();
+          throw e;
+        }
+      }
+    }
+
+    private Callable(List<Output> feeds, List<Output> fetches, List<Operation> targets) {
+      // It's okay to hold on to Operation.getUnsafeNativeHandle() here since the safety depends on
+      // the validity of the Graph and graphRef ensures that.
+      feedOpHandles = new long[feeds.size()];
+      feedOpIndices = new int[feeds.size()];
+      int idx = 0;
+      for (Output o : feeds) {
+        feedOpHandles[idx] = o.op().getUnsafeNativeHandle();
+        feedOpIndices[idx] = o.index();
+        idx++;
+      }
+      fetchOpHandles = new long[fetches.size()];
+      fetchOpIndices = new int[fetches.size()];
+      idx = 0;
+      for (Output o : fetches) {
+        fetchOpHandles[idx] = o.op().getUnsafeNativeHandle();
+        fetchOpIndices[idx] = o.index();
+        idx++;
+      }
+      targetOpHandles = new long[targets.size()];
+      idx = 0;
+      for (Operation op : targets) {
+        targetOpHandles[idx++] = op.getUnsafeNativeHandle();
+      }
+    }
+
+    private final long[] feedOpHandles;
+    private final int[] feedOpIndices;
+    private final long[] fetchOpHandles;
+    private final int[] fetchOpIndices;
+    private final long[] targetOpHandles;
+
+    // Per-thread arrays for the tensor handles exchanged with native code, so that concurrent calls
+    // neither share nor allocate them.
+    private final ThreadLocal<HandleBuffers> handleBuffers =
+        new ThreadLocal<HandleBuffers>() {
+          @Override
+          protected HandleBuffers initialValue() {
+            return new HandleBuffers(feedOpHandles.length, fetchOpHandles.length);
+          }
+        };
+  }
+
+  private static final class HandleBuffers {
+    HandleBuffers(int numInputs, int numOutputs) {
+      inputs = new long[numInputs];
+      outputs = new long[numOutputs];
+    }
+
+    final long[] inputs;
+    final long[] outputs;
+  }
+
+  // The Future of a run submitted by Runner.runAsync(). An admitted run holds its admission (see
+  // admitAsync()) until it completes or is cancelled before starting.
+  private final class AsyncRun extends FutureTask<List<Tensor>> {
+    AsyncRun(final Runner runner, boolean admitted) {
+      super(
+          new java.util.concurrent.Callable<List<Tensor>>() {
+            @Override
+            public List<Tensor> call() {
+              return runner.run();
+            }
+          });
+      this.pending = new AtomicBoolean(admitted);
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        releaseIfPending();
+      }
+    }
+
+    @Override
+    protected void set(List<Tensor> outputs) {
+      super.set(outputs);
+      if (isCancelled()) {
+        for (Tensor t : outputs) {
+          if (t != null) {
+            t.close();
           }
         }
       }
     }
 
-    private Operation operationByName(String opName) {
-      Operation op = graph.operation(opName);
-      if (op == null) {
-        throw new IllegalArgumentException("No Operation named [" + opName + "] in the Graph");
+    @Override
+    protected void done() {
+      // A run cancelled before it started will never run, or will return without executing.
+      if (isCancelled()) {
+        releaseIfPending();
       }
-      return op;
     }
 
-    private Output parseOutput(String opName) {
-      int colon = opName.lastIndexOf(':');
-      if (colon == -1 || colon == opName.length() - 1) {
-        return new Output(operationByName(opName), 0);
+    void releaseIfPending() {
+      if (pending.compareAndSet(true, false)) {
+        releaseAsync();
       }
-      try {
-        String op = opName.substring(0, colon);
-        int index = Integer.parseInt(opName.substring(colon + 1));
-        return new Output(operationByName(op), index);
-      } catch (NumberFormatException e) {
-        return new Output(operationByName(opName), 0);
+    }
+
+    private final AtomicBoolean pending;
+  }
+
+  // Admits an asynchronous run, counting it as active until releaseAsync(). Returns false if the
+  // run should be executed by the caller instead.
+  private boolean admitAsync() {
+    synchronized (asyncLock) {
+      while (true) {
+        if (runs.isClosed()) {
+          throw new IllegalStateException("run() cannot be called on the Session after close()");
+        }
+        if (numPendingAsyncRuns < maxPendingAsyncRuns) {
+          break;
+        }
+        switch (asyncRejectionPolicy) {
+          case CALLER_RUNS:
+            return false;
+          case BLOCK:
+            try {
+              asyncLock.wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new RejectedExecutionException("interrupted while waiting to submit a run");
+            }
+            break;
+          default:
+            throw new RejectedExecutionException(
+                String.format("Session already has %d pending runs", numPendingAsyncRuns));
+        }
       }
+      acquireRun();
+      ++numPendingAsyncRuns;
+      return true;
     }
+  }
 
-    private ArrayList<Output> inputs = new ArrayList<Output>();
-    private ArrayList<Tensor> inputTensors = new ArrayList<Tensor>();
-    private ArrayList<Output> outputs = new ArrayList<Output>();
-    private ArrayList<Operation> targets = new ArrayList<Operation>();
-    private byte[] runOptions = null;
+  private void releaseAsync() {
+    synchronized (asyncLock) {
+      --numPendingAsyncRuns;
+      asyncLock.notifyAll();
+    }
+    releaseRun();
   }
 
-  /** Create a Runner to execute graph operations and evaluate Tensors. */
-  public Runner runner() {
-    return new Runner();
+  private Executor defaultExecutor() {
+    synchronized (asyncLock) {
+      if (asyncExecutor == null) {
+        asyncExecutor =
+            Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                  @Override
+                  public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "tensorflow-session-run");
+                    t.setDaemon(true);
+                    return t;
+                  }
+                });
+      }
+      return asyncExecutor;
+    }
+  }
+
+  // Counts a run as active, so that close() waits for it. Neither this nor releaseRun() lock the
+  // Session.
+  private void acquireRun() {
+    if (!runs.acquire()) {
+      throw new IllegalStateException("run() cannot be called on the Session after close()");
+    }
+  }
+
+  private void releaseRun() {
+    runs.release();
+  }
+
+  private Operation operationByName(String opName) {
+    Operation op = graph.operation(opName);
+    if (op == null) {
+      throw new IllegalArgumentException("No Operation named [" + opName + "] in the Graph");
+    }
+    return op;
+  }
+
+  Output parseOutput(String opName) {
+    int colon = opName.lastIndexOf(':');
+    if (colon == -1 || colon == opName.length() - 1) {
+      return new Output(operationByName(opName), 0);
+    }
+    try {
+      String op = opName.substring(0, colon);
+      int index = Integer.parseInt(opName.substring(colon + 1));
+      return new Output(operationByName(op), index);
+    } catch (NumberFormatException e) {
+      return new Output(operationByName(opName), 0);
+    }
+  }
+
+  /**
+   * Latencies observed by {@link Runner#warmUp()}.
+   *
+   * <p>A readiness check can, for example, require {@link #converged()} before a model serves
+   * requests.
+   */
+  public static final class WarmUpStats {
+    /** The number of executions compared to decide that the latency is stable. */
+    public static final int WINDOW = 5;
+
+    /** The number of executions performed. */
+    public int numRuns() {
+      return numRuns;
+    }
+
+    /** The latency of the first execution. */
+    public long coldLatency(TimeUnit unit) {
+      return unit.convert(coldNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** The median latency of the last executions. */
+    public long warmLatency(TimeUnit unit) {
+      return unit.convert(warmNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Whether the latency stabilized before the maximum number of executions. */
+    public boolean converged() {
+      return converged;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d runs, cold %dus, warm %dus%s",
+          numRuns,
+          coldLatency(TimeUnit.MICROSECONDS),
+          warmLatency(TimeUnit.MICROSECONDS),
+          converged ? "" : " (not converged)");
+    }
+
+    WarmUpStats(int numRuns, long coldNanos, long warmNanos, boolean converged) {
+      this.numRuns = numRuns;
+      this.coldNanos = coldNanos;
+      this.warmNanos = warmNanos;
+      this.converged = converged;
+    }
+
+    static boolean isStable(long[] nanos) {
+      long min = Long.MAX_VALUE;
+      long max = 0;
+      for (long n : nanos) {
+        min = Math.min(min, n);
+        max = Math.max(max, n);
+      }
+      return max - min <= min / 10;
+    }
+
+    static long median(long[] nanos) {
+      long[] sorted = nanos.clone();
+      Arrays.sort(sorted);
+      return sorted[sorted.length / 2];
+    }
+
+    private final int numRuns;
+    private final long coldNanos;
+    private final long warmNanos;
+    private final boolean converged;
   }
 
   /**
@@ -407,9 +1045,14 @@ public final class Session implements AutoCloseable {
   private final Graph graph;
   private final Graph.Reference graphRef;
 
-  private final Object nativeHandleLock = new Object();
+  private final ReferenceCount runs = new ReferenceCount();
   private long nativeHandle;
-  private int numActiveRuns;
+  // Guards the state of asynchronous runs below, but not synchronous runs.
+  private final Object asyncLock = new Object();
+  private int numPendingAsyncRuns;
+  private int maxPendingAsyncRuns = DEFAULT_MAX_PENDING_ASYNC_RUNS;
+  private RejectionPolicy asyncRejectionPolicy = RejectionPolicy.ABORT;
+  private ExecutorService asyncExecutor;
 
   // TODO(ashankar): Remove after TensorFlow 1.2 has been released with allocate2().
   private static native long allocate(long graphHandle);
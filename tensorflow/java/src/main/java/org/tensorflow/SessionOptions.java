@@ -0,0 +1,228 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of a {@link Session}.
+ *
+ * <p>A type-safe subset of the <a
+ * href="https://www.tensorflow.org/code/tensorflow/core/protobuf/config.proto">ConfigProto</a>
+ * protocol buffer, covering the options that most affect performance. For example:
+ *
+ * <pre>{@code
+ * SessionOptions options =
+ *     SessionOptions.builder()
+ *         .intraOpParallelismThreads(2)
+ *         .interOpParallelismThreads(1)
+ *         .usePerSessionThreads(true)
+ *         .build();
+ * try (Session s = new Session(graph, options)) {
+ *   ...
+ * }
+ * }</pre>
+ *
+ * <p>Options that are not set keep the TensorFlow defaults. Instances are immutable.
+ */
+public final class SessionOptions {
+
+  /** Optimization level of the graph optimizer, see {@code OptimizerOptions.Level}. */
+  public enum OptimizerLevel {
+    /** No optimizations. */
+    L0(-1),
+    /** Common subexpression elimination and constant folding (the default). */
+    L1(0);
+
+    private OptimizerLevel(int value) {
+      this.value = value;
+    }
+
+    private final int value;
+  }
+
+  /** Just-in-time compilation of the graph, see {@code OptimizerOptions.GlobalJitLevel}. */
+  public enum JitLevel {
+    /** The default, currently {@link #OFF}. */
+    DEFAULT(0),
+    /** No compilation. */
+    OFF(-1),
+    /** Compile clusters of operations (a higher level compiles more aggressively). */
+    ON_1(1),
+    /** Compile clusters of operations, more aggressively than {@link #ON_1}. */
+    ON_2(2);
+
+    private JitLevel(int value) {
+      this.value = value;
+    }
+
+    private final int value;
+  }
+
+  /** Create a builder of SessionOptions, with all options unset. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Builder of {@link SessionOptions}. */
+  public static final class Builder {
+    /**
+     * Set the number of threads used to parallelize the execution of a single operation, or 0 to
+     * let TensorFlow choose.
+     */
+    public Builder intraOpParallelismThreads(int numThreads) {
+      intraOpParallelismThreads = checkNonNegative("intraOpParallelismThreads", numThreads);
+      return this;
+    }
+
+    /**
+     * Set the number of threads used to execute independent operations concurrently, or 0 to let
+     * TensorFlow choose.
+     */
+    public Builder interOpParallelismThreads(int numThreads) {
+      interOpParallelismThreads = checkNonNegative("interOpParallelismThreads", numThreads);
+      return this;
+    }
+
+    /**
+     * Set whether the session creates thread pools of its own, rather than sharing the pools of
+     * the process with other sessions.
+     */
+    public Builder usePerSessionThreads(boolean value) {
+      usePerSessionThreads = value;
+      return this;
+    }
+
+    /**
+     * Add an inter-op thread pool to the session, which runs can select with {@link
+     * RunOptions.Builder#interOpThreadPool(int)}.
+     *
+     * @param numThreads the number of threads of the pool, or 0 to let TensorFlow choose
+     * @param globalName if not null, the name of a pool shared by all sessions that use it
+     */
+    public Builder addSessionInterOpThreadPool(int numThreads, String globalName) {
+      ProtoWriter pool = new ProtoWriter();
+      pool.writeVarint(1, checkNonNegative("numThreads", numThreads));
+      if (globalName != null) {
+        pool.writeString(2, globalName);
+      }
+      sessionInterOpThreadPools.add(pool.toByteArray());
+      return this;
+    }
+
+    /** Set the optimization level of the graph optimizer. */
+    public Builder optimizerLevel(OptimizerLevel level) {
+      optimizerLevel = level;
+      return this;
+    }
+
+    /**
+     * Set whether constant subgraphs are folded into constants before execution.
+     *
+     * <p>TensorFlow honors this only at {@link OptimizerLevel#L0}: {@link OptimizerLevel#L1} always
+     * folds constants. Unless an {@link #optimizerLevel} is set, setting this selects {@link
+     * OptimizerLevel#L0}, which also disables common subexpression elimination.
+     */
+    public Builder doConstantFolding(boolean value) {
+      doConstantFolding = value;
+      return this;
+    }
+
+    /** Set the just-in-time compilation of the graph. */
+    public Builder globalJitLevel(JitLevel level) {
+      globalJitLevel = level;
+      return this;
+    }
+
+    /** Set the time after which blocking operations, such as queue operations, fail. */
+    public Builder operationTimeout(long duration, TimeUnit unit) {
+      operationTimeoutMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /** Create the SessionOptions. */
+    public SessionOptions build() {
+      ProtoWriter optimizer = new ProtoWriter();
+      if (doConstantFolding != null) {
+        optimizer.writeBool(2, doConstantFolding);
+      }
+      OptimizerLevel level = optimizerLevel;
+      if (level == null && doConstantFolding != null) {
+        level = OptimizerLevel.L0;
+      }
+      if (level != null) {
+        optimizer.writeVarint(3, level.value);
+      }
+      if (globalJitLevel != null) {
+        optimizer.writeVarint(5, globalJitLevel.value);
+      }
+      byte[] optimizerOptions = optimizer.toByteArray();
+
+      ProtoWriter config = new ProtoWriter();
+      if (intraOpParallelismThreads != null) {
+        config.writeVarint(2, intraOpParallelismThreads);
+      }
+      if (interOpParallelismThreads != null) {
+        config.writeVarint(5, interOpParallelismThreads);
+      }
+      if (usePerSessionThreads != null) {
+        config.writeBool(9, usePerSessionThreads);
+      }
+      if (optimizerOptions.length > 0) {
+        // GraphOptions.optimizer_options
+        config.writeBytes(10, new ProtoWriter().writeBytes(3, optimizerOptions).toByteArray());
+      }
+      if (operationTimeoutMillis != null) {
+        config.writeVarint(11, operationTimeoutMillis);
+      }
+      for (byte[] pool : sessionInterOpThreadPools) {
+        config.writeBytes(12, pool);
+      }
+      return new SessionOptions(config.toByteArray());
+    }
+
+    private Builder() {}
+
+    private Integer intraOpParallelismThreads = null;
+    private Integer interOpParallelismThreads = null;
+    private Boolean usePerSessionThreads = null;
+    private final List<byte[]> sessionInterOpThreadPools = new ArrayList<byte[]>();
+    private OptimizerLevel optimizerLevel = null;
+    private Boolean doConstantFolding = null;
+    private JitLevel globalJitLevel = null;
+    private Long operationTimeoutMillis = null;
+  }
+
+  /** Returns the options as a serialized ConfigProto protocol buffer. */
+  public byte[] toByteArray() {
+    return config.clone();
+  }
+
+  static int checkNonNegative(String name, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException(name + " must not be negative, got " + value);
+    }
+    return value;
+  }
+
+  private SessionOptions(byte[] config) {
+    this.config = config;
+  }
+
+  private final byte[] config;
+}
@@ -15,6 +15,9 @@ limitations under the License.
 
 package org.tensorflow;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Array;
 import java.nio.Buffer;
 import java.nio.BufferOverflowException;
@@ -24,7 +27,14 @@ import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A typed multi-dimensional array.
@@ -48,8 +58,10 @@ public final class Tensor implements AutoCloseable {
    *
    * <p>A Tensor is a multi-dimensional array of elements of a limited set of types ({@link
    * DataType}). Thus, not all Java objects can be converted to a Tensor. In particular, {@code obj}
-   * must be either a primitive (float, double, int, long, boolean) or a multi-dimensional array of
-   * one of those primitives. For example:
+   * must be either a primitive (float, double, int, long, short, boolean) or a multi-dimensional
+   * array of one of those primitives. A {@code byte[]} is a {@link DataType#STRING} scalar, so a
+   * multi-dimensional array of {@code byte[]} creates a STRING tensor of the corresponding rank.
+   * For example:
    *
    * <pre>{@code
    * // Valid: A 64-bit integer scalar.
@@ -59,6 +71,10 @@ public final class Tensor implements AutoCloseable {
    * float[][] matrix = new float[3][2];
    * Tensor m = Tensor.create(matrix);
    *
+   * // Valid: A vector of 2 strings.
+   * byte[][] strings = {"foo".getBytes(UTF_8), "bar".getBytes(UTF_8)};
+   * Tensor v = Tensor.create(strings);
+   *
    * // Invalid: Will throw an IllegalArgumentException as an arbitrary Object
    * // does not fit into the TensorFlow type system.
    * Tensor o = Tensor.create(new Object());
@@ -81,18 +97,21 @@ public final class Tensor implements AutoCloseable {
     t.shapeCopy = new long[numDimensions(obj)];
     fillShape(obj, 0, t.shapeCopy);
     if (t.dtype != DataType.STRING) {
-      int byteSize = elemByteSize(t.dtype) * numElements(t.shapeCopy);
+      long byteSize = elemByteSize(t.dtype) * numElements(t.shapeCopy);
       t.nativeHandle = allocate(t.dtype.c(), t.shapeCopy, byteSize);
-      setValue(t.nativeHandle, obj);
+      if (byteSize >= PARALLEL_COPY_THRESHOLD && t.shapeCopy.length > 1) {
+        t.copyRows((Object[]) obj, true);
+      } else {
+        setValue(t.nativeHandle, obj);
+      }
     } else if (t.shapeCopy.length != 0) {
-      throw new UnsupportedOperationException(
-          String.format(
-              "non-scalar DataType.STRING tensors are not supported yet (version %s). Please file a feature request at https://github.com/tensorflow/tensorflow/issues/new",
-              TensorFlow.version()));
+      byte[][] elements = new byte[(int) numElements(t.shapeCopy)][];
+      flattenBytes(obj, t.shapeCopy.length, elements, 0);
+      t.nativeHandle = allocateNonScalarBytes(t.shapeCopy, elements);
     } else {
       t.nativeHandle = allocateScalarBytes((byte[]) obj);
     }
-    return t;
+    return t.tracked();
   }
 
   /**
@@ -109,7 +128,7 @@ public final class Tensor implements AutoCloseable {
    */
   public static Tensor create(long[] shape, IntBuffer data) {
     Tensor t = allocateForBuffer(DataType.INT32, shape, data.remaining());
-    t.buffer().asIntBuffer().put(data);
+    t.put(data, 0);
     return t;
   }
 
@@ -127,7 +146,7 @@ public final class Tensor implements AutoCloseable {
    */
   public static Tensor create(long[] shape, FloatBuffer data) {
     Tensor t = allocateForBuffer(DataType.FLOAT, shape, data.remaining());
-    t.buffer().asFloatBuffer().put(data);
+    t.put(data, 0);
     return t;
   }
 
@@ -145,7 +164,7 @@ public final class Tensor implements AutoCloseable {
    */
   public static Tensor create(long[] shape, DoubleBuffer data) {
     Tensor t = allocateForBuffer(DataType.DOUBLE, shape, data.remaining());
-    t.buffer().asDoubleBuffer().put(data);
+    t.put(data, 0);
     return t;
   }
 
@@ -163,7 +182,7 @@ public final class Tensor implements AutoCloseable {
    */
   public static Tensor create(long[] shape, LongBuffer data) {
     Tensor t = allocateForBuffer(DataType.INT64, shape, data.remaining());
-    t.buffer().asLongBuffer().put(data);
+    t.put(data, 0);
     return t;
   }
 
@@ -195,15 +214,245 @@ public final class Tensor implements AutoCloseable {
       nremaining = data.remaining();
     }
     Tensor t = allocateForBuffer(dataType, shape, nremaining);
-    t.buffer().put(data);
+    t.put(data, 0);
+    return t;
+  }
+
+  /**
+   * Create a Tensor with data from the given sequence of buffers.
+   *
+   * <p>Like {@link #create(DataType, long[], ByteBuffer)}, but with the tensor data split across
+   * multiple buffers, whose remaining bytes are concatenated in order. This allows creating tensors
+   * larger than a single {@link ByteBuffer} can hold (2GB). Each element of a numeric tensor must
+   * be entirely contained in one buffer.
+   *
+   * @param dataType the tensor datatype.
+   * @param shape the tensor shape.
+   * @param data buffers containing the tensor data.
+   * @throws IllegalArgumentException If the tensor datatype or shape is not compatible with the
+   *     buffers
+   */
+  public static Tensor create(DataType dataType, long[] shape, ByteBuffer[] data) {
+    long nbytes = 0;
+    for (ByteBuffer b : data) {
+      nbytes += b.remaining();
+    }
+    long nremaining = nbytes;
+    if (dataType != DataType.STRING) {
+      int elemBytes = elemByteSize(dataType);
+      for (ByteBuffer b : data) {
+        if (b.remaining() % elemBytes != 0) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "ByteBuffer with %d bytes is not compatible with a %s Tensor (%d bytes/element)",
+                  b.remaining(), dataType.toString(), elemBytes));
+        }
+      }
+      nremaining = nbytes / elemBytes;
+    }
+    Tensor t = allocateForBuffer(dataType, shape, nremaining);
+    long offset = 0;
+    for (ByteBuffer b : data) {
+      offset = t.put(b, offset);
+    }
     return t;
   }
 
+  /**
+   * Create a Tensor that uses the memory of a direct buffer, without copying it.
+   *
+   * <p>Unlike {@link #create(DataType, long[], ByteBuffer)}, the elements remaining in {@code data}
+   * (from its current position to its limit) are not copied: the returned Tensor refers to that
+   * memory directly. The buffer is kept reachable until the Tensor is closed and the TensorFlow
+   * runtime no longer needs the data, so the caller must not modify the contents of {@code data}
+   * in the meantime. The position of {@code data} is not changed.
+   *
+   * <p>The data must be encoded as per the specification of the TensorFlow <a
+   * href="https://www.tensorflow.org/code/tensorflow/c/c_api.h">C API</a>, i.e., in native byte
+   * order for numeric types. The TensorFlow runtime requires tensor memory to be suitably aligned
+   * (typically at 64 byte boundaries), and will silently fall back to a copy if the first remaining
+   * element of {@code data} is not.
+   *
+   * @param dataType the tensor datatype.
+   * @param shape the tensor shape.
+   * @param data a direct buffer containing the tensor data.
+   * @throws IllegalArgumentException If {@code data} is not a direct buffer, or if the tensor
+   *     datatype or shape is not compatible with the buffer
+   */
+  public static Tensor wrap(DataType dataType, long[] shape, ByteBuffer data) {
+    int nbytes = data.remaining();
+    if (dataType != DataType.STRING) {
+      int elemBytes = elemByteSize(dataType);
+      if (nbytes % elemBytes != 0) {
+        throw new IllegalArgumentException(
+            String.format(
+                "ByteBuffer with %d bytes is not compatible with a %s Tensor (%d bytes/element)",
+                nbytes, dataType.toString(), elemBytes));
+      }
+      if (nbytes / elemBytes != numElements(shape)) {
+        throw incompatibleBuffer(nbytes / elemBytes, shape);
+      }
+    }
+    return wrapBuffer(dataType, shape, data, data.position(), nbytes);
+  }
+
+  /**
+   * Create an {@link DataType#INT32} Tensor that uses the memory of a direct buffer, without
+   * copying it.
+   *
+   * <p>See {@link #wrap(DataType, long[], ByteBuffer)} for the lifetime and alignment requirements
+   * of {@code data}, which must also be in native byte order.
+   *
+   * @param shape the tensor shape.
+   * @param data a direct buffer containing the tensor data.
+   * @throws IllegalArgumentException If {@code data} is not a direct buffer in native byte order,
+   *     or if the tensor shape is not compatible with the buffer
+   */
+  public static Tensor wrap(long[] shape, IntBuffer data) {
+    checkWrappable(data, data.order(), shape);
+    return wrapBuffer(DataType.INT32, shape, data, 4L * data.position(), 4L * data.remaining());
+  }
+
+  /**
+   * Create a {@link DataType#FLOAT} Tensor that uses the memory of a direct buffer, without copying
+   * it.
+   *
+   * <p>See {@link #wrap(DataType, long[], ByteBuffer)} for the lifetime and alignment requirements
+   * of {@code data}, which must also be in native byte order.
+   *
+   * @param shape the tensor shape.
+   * @param data a direct buffer containing the tensor data.
+   * @throws IllegalArgumentException If {@code data} is not a direct buffer in native byte order,
+   *     or if the tensor shape is not compatible with the buffer
+   */
+  public static Tensor wrap(long[] shape, FloatBuffer data) {
+    checkWrappable(data, data.order(), shape);
+    return wrapBuffer(DataType.FLOAT, shape, data, 4L * data.position(), 4L * data.remaining());
+  }
+
+  /**
+   * Create a {@link DataType#DOUBLE} Tensor that uses the memory of a direct buffer, without
+   * copying it.
+   *
+   * <p>See {@link #wrap(DataType, long[], ByteBuffer)} for the lifetime and alignment requirements
+   * of {@code data}, which must also be in native byte order.
+   *
+   * @param shape the tensor shape.
+   * @param data a direct buffer containing the tensor data.
+   * @throws IllegalArgumentException If {@code data} is not a direct buffer in native byte order,
+   *     or if the tensor shape is not compatible with the buffer
+   */
+  public static Tensor wrap(long[] shape, DoubleBuffer data) {
+    checkWrappable(data, data.order(), shape);
+    return wrapBuffer(DataType.DOUBLE, shape, data, 8L * data.position(), 8L * data.remaining());
+  }
+
+  /**
+   * Create an {@link DataType#INT64} Tensor that uses the memory of a direct buffer, without
+   * copying it.
+   *
+   * <p>See {@link #wrap(DataType, long[], ByteBuffer)} for the lifetime and alignment requirements
+   * of {@code data}, which must also be in native byte order.
+   *
+   * @param shape the tensor shape.
+   * @param data a direct buffer containing the tensor data.
+   * @throws IllegalArgumentException If {@code data} is not a direct buffer in native byte order,
+   *     or if the tensor shape is not compatible with the buffer
+   */
+  public static Tensor wrap(long[] shape, LongBuffer data) {
+    checkWrappable(data, data.order(), shape);
+    return wrapBuffer(DataType.INT64, shape, data, 8L * data.position(), 8L * data.remaining());
+  }
+
+  /**
+   * Create a Tensor backed by a read-only memory mapping of a file.
+   *
+   * <p>The tensor data is read from {@code file} starting at byte {@code offset}, without copying
+   * it into the Java heap or into memory allocated by the TensorFlow runtime. Since the mapping is
+   * backed by the operating system's page cache, the same file mapped by multiple Tensors, sessions
+   * or processes occupies physical memory only once, and pages are loaded lazily as they are
+   * accessed. The mapping is released once the Tensor is closed and the TensorFlow runtime no
+   * longer needs the data.
+   *
+   * <p>The file must contain the raw tensor data in row-major order, encoded in little-endian byte
+   * order. The file must not be modified while the Tensor is in use. As with {@link
+   * #wrap(DataType, long[], ByteBuffer)}, the TensorFlow runtime falls back to copying the data if
+   * it is not suitably aligned, so {@code offset} should be a multiple of 64 bytes.
+   *
+   * @param file the file containing the tensor data.
+   * @param dataType the tensor datatype, which may not be {@link DataType#STRING}.
+   * @param shape the tensor shape.
+   * @param offset the position in the file of the first byte of the tensor data.
+   * @throws IllegalArgumentException if {@code dataType} is {@link DataType#STRING}, if {@code
+   *     offset} is negative, if the file is too short to contain the tensor data, or if the tensor
+   *     data is larger than a single mapping allows (2GB)
+   * @throws UnsupportedOperationException if {@code dataType} has multi-byte elements and the
+   *     platform is not little-endian
+   * @throws IOException if the file cannot be opened or mapped
+   */
+  public static Tensor fromMappedFile(File file, DataType dataType, long[] shape, long offset)
+      throws IOException {
+    if (dataType == DataType.STRING) {
+      throw new IllegalArgumentException("cannot map a STRING tensor from a file");
+    }
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset cannot be negative, got " + offset);
+    }
+    int elemBytes = elemByteSize(dataType);
+    if (elemBytes > 1 && ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+      throw new UnsupportedOperationException(
+          "cannot map little-endian " + dataType + " data on a big-endian platform");
+    }
+    long nbytes = (long) elemBytes * numElements(shape);
+    // RandomAccessFile rather than java.nio.file, which Android only provides from API level 26.
+    try (RandomAccessFile f = new RandomAccessFile(file, "r");
+        FileChannel channel = f.getChannel()) {
+      long size = channel.size();
+      if (offset > size || nbytes > size - offset) {
+        throw new IllegalArgumentException(
+            String.format(
+                "file %s has %d bytes, which is too short for a %d byte tensor at offset %d",
+                file, size, nbytes, offset));
+      }
+      // The mapping remains valid after the channel is closed.
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, nbytes);
+      return wrapBuffer(dataType, shape, data, 0, nbytes);
+    }
+  }
+
+  // Helper function for the typed wrap() methods. The byte order is passed separately since it is
+  // not accessible through java.nio.Buffer.
+  private static void checkWrappable(Buffer data, ByteOrder order, long[] shape) {
+    if (order != ByteOrder.nativeOrder()) {
+      throw new IllegalArgumentException(
+          "cannot wrap a buffer that is not in native byte order, use create() instead");
+    }
+    if (data.remaining() != numElements(shape)) {
+      throw incompatibleBuffer(data.remaining(), shape);
+    }
+  }
+
+  // Helper function to create a Tensor for the wrap() methods, where offset and nbytes identify
+  // the region of the direct buffer data to be used.
+  private static Tensor wrapBuffer(
+      DataType dataType, long[] shape, Buffer data, long offset, long nbytes) {
+    if (!data.isDirect()) {
+      throw new IllegalArgumentException(
+          "cannot wrap a buffer that is not direct, use create() instead");
+    }
+    Tensor t = new Tensor();
+    t.dtype = dataType;
+    t.shapeCopy = Arrays.copyOf(shape, shape.length);
+    t.nativeHandle = allocateWrapped(t.dtype.c(), t.shapeCopy, data, offset, nbytes);
+    t.borrowed = true;
+    return t.tracked();
+  }
+
   // Helper function to allocate a Tensor for the create() methods that create a Tensor from
   // a java.nio.Buffer.
-  private static Tensor allocateForBuffer(DataType dataType, long[] shape, int nBuffered) {
-    final int nflattened = numElements(shape);
-    int nbytes = 0;
+  private static Tensor allocateForBuffer(DataType dataType, long[] shape, long nBuffered) {
+    final long nflattened = numElements(shape);
+    long nbytes = 0;
     if (dataType != DataType.STRING) {
       if (nBuffered != nflattened) {
         throw incompatibleBuffer(nBuffered, shape);
@@ -217,7 +466,7 @@ public final class Tensor implements AutoCloseable {
     t.dtype = dataType;
     t.shapeCopy = Arrays.copyOf(shape, shape.length);
     t.nativeHandle = allocate(t.dtype.c(), t.shapeCopy, nbytes);
-    return t;
+    return t.tracked();
   }
 
   /**
@@ -230,7 +479,14 @@ public final class Tensor implements AutoCloseable {
   @Override
   public void close() {
     if (nativeHandle != 0) {
-      delete(nativeHandle);
+      if (trackerRef != null) {
+        trackerRef.release();
+        trackerRef = null;
+      }
+      nativeBuffers = null;
+      if (pool == null || !pool.recycle(nativeHandle, poolKey)) {
+        delete(nativeHandle);
+      }
       nativeHandle = 0;
     }
   }
@@ -251,12 +507,12 @@ public final class Tensor implements AutoCloseable {
   }
 
   /** Returns the size, in bytes, of the tensor data. */
-  public int numBytes() {
-    return buffer().remaining();
+  public long numBytes() {
+    return byteSize(nativeHandle);
   }
 
   /** Returns the number of elements in a flattened (1-D) view of the tensor. */
-  public int numElements() {
+  public long numElements() {
     return numElements(shapeCopy);
   }
 
@@ -270,6 +526,72 @@ public final class Tensor implements AutoCloseable {
     return shapeCopy;
   }
 
+  /**
+   * Returns a Tensor with the elements {@code [dim0Start, dim0End)} of the first dimension of this
+   * Tensor, without copying them when possible.
+   *
+   * <p>The returned Tensor has the same {@link DataType} and rank as this Tensor, with a first
+   * dimension of size {@code dim0End - dim0Start}. It shares the memory of this Tensor, which is
+   * released only once this Tensor and all the Tensors sliced from it have been closed. Each of
+   * them must be closed, in any order. The elements are copied instead if they do not start at an
+   * address aligned as TensorFlow kernels require, which may be the case when the rows of this
+   * Tensor are not a multiple of 64 bytes. For example, to split a batched output between the
+   * requests it was computed for:
+   *
+   * <pre>{@code
+   * try (Tensor batch = s.runner().feed("x", x).fetch("y").run().get(0)) {
+   *   for (Request r : requests) {
+   *     r.respond(batch.slice(r.start(), r.end()));
+   *   }
+   * }
+   * }</pre>
+   *
+   * @throws IllegalArgumentException if this Tensor is a scalar or a {@link DataType#STRING} tensor
+   * @throws IndexOutOfBoundsException if the range is not within the first dimension of this
+   *     Tensor
+   */
+  public Tensor slice(int dim0Start, int dim0End) {
+    throwExceptionIfNotSliceable();
+    if (dim0Start < 0 || dim0Start > dim0End || dim0End > shapeCopy[0]) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "cannot slice [%d, %d) from a Tensor with shape %s",
+              dim0Start, dim0End, Arrays.toString(shapeCopy)));
+    }
+    long[] sliceShape = Arrays.copyOf(shapeCopy, shapeCopy.length);
+    sliceShape[0] = dim0End - dim0Start;
+    long rowBytes = rowBytes();
+    return sliceOf(sliceShape, dim0Start * rowBytes, sliceShape[0] * rowBytes);
+  }
+
+  /**
+   * Returns the elements of the first dimension of this Tensor as separate Tensors, without copying
+   * them when possible.
+   *
+   * <p>For a Tensor with shape {@code [n, d1, ..., dk]}, returns {@code n} Tensors of shape {@code
+   * [d1, ..., dk]}. As with {@link #slice(int, int)}, the returned Tensors share the memory of this
+   * Tensor unless they would be misaligned, and each of them must be closed.
+   *
+   * @throws IllegalArgumentException if this Tensor is a scalar or a {@link DataType#STRING} tensor
+   */
+  public List<Tensor> unstack() {
+    throwExceptionIfNotSliceable();
+    long[] elemShape = Arrays.copyOfRange(shapeCopy, 1, shapeCopy.length);
+    long rowBytes = rowBytes();
+    List<Tensor> ret = new ArrayList<Tensor>((int) shapeCopy[0]);
+    try {
+      for (long i = 0; i < shapeCopy[0]; ++i) {
+        ret.add(sliceOf(elemShape, i * rowBytes, rowBytes));
+      }
+    } catch (RuntimeException e) {
+      for (Tensor t : ret) {
+        t.close();
+      }
+      throw e;
+    }
+    return ret;
+  }
+
   /**
    * Returns the value in a scalar {@link DataType#FLOAT} tensor.
    *
@@ -329,8 +651,11 @@ public final class Tensor implements AutoCloseable {
    *
    * <p>For non-scalar tensors, this method copies the contents of the underlying tensor to a Java
    * array. For scalar tensors, use one of {@link #floatValue()}, {@link #doubleValue()}, {@link
-   * #intValue()}, {@link #longValue()} or {@link #booleanValue()} instead. The type and shape of
-   * {@code dst} must be compatible with the tensor. For example:
+   * #intValue()}, {@link #longValue()}, {@link #booleanValue()} or {@link #bytesValue()} instead.
+   * The type and shape of {@code dst} must be compatible with the tensor. For {@link
+   * DataType#STRING} tensors, {@code dst} is a multi-dimensional array of {@code byte[]} (such as
+   * {@code new byte[2][3][]}), whose innermost elements are replaced by the decoded strings. For
+   * example:
    *
    * <pre>{@code
    * int matrix[2][2] = {{1,2},{3,4}};
@@ -350,10 +675,132 @@ public final class Tensor implements AutoCloseable {
    */
   public <T> T copyTo(T dst) {
     throwExceptionIfTypeIsIncompatible(dst);
-    readNDArray(nativeHandle, dst);
+    if (dtype == DataType.STRING && numDimensions() != 0) {
+      unflattenBytes(stringElements(nativeHandle), dst, numDimensions(), 0);
+    } else if (numDimensions() > 1
+        && (long) elemByteSize(dtype) * numElements(shapeCopy) >= PARALLEL_COPY_THRESHOLD) {
+      copyRows((Object[]) dst, false);
+    } else {
+      readNDArray(nativeHandle, dst);
+    }
     return dst;
   }
 
+  /**
+   * Returns a read-only view of the tensor data.
+   *
+   * <p>The returned buffer refers directly to the memory of the tensor, so no data is copied. Its
+   * contents are encoded in native byte order as per the specification of the TensorFlow <a
+   * href="https://www.tensorflow.org/code/tensorflow/c/c_api.h">C API</a>. Each call returns an
+   * independent buffer (with its own position and limit) over the same memory, which remains valid
+   * until the Tensor is closed. The buffer <b>must not</b> be used after {@link #close()} is
+   * invoked.
+   *
+   * @throws IllegalStateException If the tensor data is too large to fit in a single buffer (more
+   *     than {@link Integer#MAX_VALUE} bytes), in which case {@link #asByteBuffers()} can be used
+   *     instead
+   */
+  public ByteBuffer asByteBuffer() {
+    ByteBuffer[] chunks = nativeBuffers();
+    if (chunks.length != 1) {
+      throw new IllegalStateException(
+          String.format(
+              "Tensor with %d bytes does not fit in a single ByteBuffer, use asByteBuffers()",
+              numBytes()));
+    }
+    return chunks[0].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Returns read-only views of consecutive chunks of the tensor data.
+   *
+   * <p>Like {@link #asByteBuffer()}, but also usable for tensors larger than a single {@link
+   * ByteBuffer} can hold. The tensor data is the concatenation of the returned buffers, which all
+   * have the same size except possibly the last one. Each chunk holds a whole number of elements of
+   * a numeric tensor.
+   */
+  public ByteBuffer[] asByteBuffers() {
+    ByteBuffer[] chunks = nativeBuffers();
+    ByteBuffer[] views = new ByteBuffer[chunks.length];
+    for (int i = 0; i < chunks.length; ++i) {
+      views[i] = chunks[i].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+    return views;
+  }
+
+  /**
+   * Returns a read-only view of the data of a {@link DataType#INT32} tensor.
+   *
+   * <p>See {@link #asByteBuffer()} for the lifetime of the returned buffer.
+   *
+   * @throws IllegalArgumentException If the tensor datatype is not {@link DataType#INT32}
+   */
+  public IntBuffer asIntBuffer() {
+    if (dtype != DataType.INT32) {
+      throw incompatibleView(IntBuffer.class);
+    }
+    return asByteBuffer().asIntBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the data of a {@link DataType#FLOAT} tensor.
+   *
+   * <p>See {@link #asByteBuffer()} for the lifetime of the returned buffer.
+   *
+   * @throws IllegalArgumentException If the tensor datatype is not {@link DataType#FLOAT}
+   */
+  public FloatBuffer asFloatBuffer() {
+    if (dtype != DataType.FLOAT) {
+      throw incompatibleView(FloatBuffer.class);
+    }
+    return asByteBuffer().asFloatBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the data of a {@link DataType#DOUBLE} tensor.
+   *
+   * <p>See {@link #asByteBuffer()} for the lifetime of the returned buffer.
+   *
+   * @throws IllegalArgumentException If the tensor datatype is not {@link DataType#DOUBLE}
+   */
+  public DoubleBuffer asDoubleBuffer() {
+    if (dtype != DataType.DOUBLE) {
+      throw incompatibleView(DoubleBuffer.class);
+    }
+    return asByteBuffer().asDoubleBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the data of a {@link DataType#INT64} tensor.
+   *
+   * <p>See {@link #asByteBuffer()} for the lifetime of the returned buffer.
+   *
+   * @throws IllegalArgumentException If the tensor datatype is not {@link DataType#INT64}
+   */
+  public LongBuffer asLongBuffer() {
+    if (dtype != DataType.INT64) {
+      throw incompatibleView(LongBuffer.class);
+    }
+    return asByteBuffer().asLongBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the data of a {@link DataType#INT16}, {@link DataType#HALF} or
+   * {@link DataType#BFLOAT16} tensor.
+   *
+   * <p>The elements of HALF and BFLOAT16 tensors are viewed as their bit patterns, see {@link
+   * org.tensorflow.types.Conversions} for converting them to and from floats. See {@link
+   * #asByteBuffer()} for the lifetime of the returned buffer.
+   *
+   * @throws IllegalArgumentException If the tensor datatype does not have 16-bit elements
+   */
+  public ShortBuffer asShortBuffer() {
+    if (!isShortType(dtype)) {
+      throw incompatibleView(ShortBuffer.class);
+    }
+    return asByteBuffer().asShortBuffer();
+  }
+
   /**
    * Write the data of a {@link DataType#INT32} tensor into the given buffer.
    *
@@ -368,8 +815,7 @@ public final class Tensor implements AutoCloseable {
     if (dtype != DataType.INT32) {
       throw incompatibleBuffer(dst, dtype);
     }
-    ByteBuffer src = buffer();
-    dst.put(src.asIntBuffer());
+    get(dst, numElements());
   }
 
   /**
@@ -386,8 +832,7 @@ public final class Tensor implements AutoCloseable {
     if (dtype != DataType.FLOAT) {
       throw incompatibleBuffer(dst, dtype);
     }
-    ByteBuffer src = buffer();
-    dst.put(src.asFloatBuffer());
+    get(dst, numElements());
   }
 
   /**
@@ -404,8 +849,7 @@ public final class Tensor implements AutoCloseable {
     if (dtype != DataType.DOUBLE) {
       throw incompatibleBuffer(dst, dtype);
     }
-    ByteBuffer src = buffer();
-    dst.put(src.asDoubleBuffer());
+    get(dst, numElements());
   }
 
   /**
@@ -422,8 +866,25 @@ public final class Tensor implements AutoCloseable {
     if (dtype != DataType.INT64) {
       throw incompatibleBuffer(dst, dtype);
     }
-    ByteBuffer src = buffer();
-    dst.put(src.asLongBuffer());
+    get(dst, numElements());
+  }
+
+  /**
+   * Write the data of a {@link DataType#INT16}, {@link DataType#HALF} or {@link DataType#BFLOAT16}
+   * tensor into the given buffer.
+   *
+   * <p>Copies {@code numElements()} elements to the buffer.
+   *
+   * @param dst the destination buffer
+   * @throws BufferOverflowException If there is insufficient space in the given buffer for the data
+   *     in this tensor
+   * @throws IllegalArgumentException If the tensor datatype does not have 16-bit elements
+   */
+  public void writeTo(ShortBuffer dst) {
+    if (!isShortType(dtype)) {
+      throw incompatibleBuffer(dst, dtype);
+    }
+    get(dst, numElements());
   }
 
   /**
@@ -436,8 +897,7 @@ public final class Tensor implements AutoCloseable {
    *     in this tensor
    */
   public void writeTo(ByteBuffer dst) {
-    ByteBuffer src = buffer();
-    dst.put(src);
+    get(dst, numBytes());
   }
 
   /** Returns a string describing the type and shape of the Tensor. */
@@ -446,6 +906,25 @@ public final class Tensor implements AutoCloseable {
     return String.format("%s tensor with shape %s", dtype.toString(), Arrays.toString(shape()));
   }
 
+  // Creates a Tensor of the given type and shape with all elements zero, or empty for STRING.
+  static Tensor zeros(DataType dataType, long[] shape) {
+    if (dataType == DataType.STRING) {
+      // The innermost dimension is the (empty) byte[] of each string.
+      int[] dims = new int[shape.length + 1];
+      for (int i = 0; i < shape.length; ++i) {
+        dims[i] = (int) shape[i];
+      }
+      return create(Array.newInstance(byte.class, dims));
+    }
+    long nbytes = numElements(shape) * elemByteSize(dataType);
+    if (nbytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          String.format(
+              "cannot allocate %d bytes of zeros for shape %s", nbytes, Arrays.toString(shape)));
+    }
+    return create(dataType, shape, ByteBuffer.allocate((int) nbytes));
+  }
+
   /**
    * Create a Tensor object from a handle to the C TF_Tensor object.
    *
@@ -456,48 +935,247 @@ public final class Tensor implements AutoCloseable {
     t.dtype = DataType.fromC(dtype(handle));
     t.shapeCopy = shape(handle);
     t.nativeHandle = handle;
-    return t;
+    return t.tracked();
   }
 
   long getNativeHandle() {
     return nativeHandle;
   }
 
+  /**
+   * Create a Tensor object that returns the C TF_Tensor object to {@code pool} when closed.
+   *
+   * <p>Takes ownership of the handle, which must refer to a tensor of the type and shape of {@code
+   * key}. The memory is returned to the pool under that same key, whatever callers do with the
+   * array returned by {@link #shape()}.
+   */
+  static Tensor fromPool(TensorPool pool, long handle, TensorPool.Key key) {
+    Tensor t = new Tensor();
+    t.dtype = key.dataType;
+    t.shapeCopy = Arrays.copyOf(key.shape, key.shape.length);
+    t.nativeHandle = handle;
+    t.pool = pool;
+    t.poolKey = key;
+    return t.tracked();
+  }
+
+  // Allocate a C TF_Tensor object that is not (yet) owned by any Tensor instance.
+  static long allocateHandle(DataType dataType, long[] shape) {
+    return allocate(dataType.c(), shape, elemByteSize(dataType) * numElements(shape));
+  }
+
+  // Release a C TF_Tensor object that is not owned by any Tensor instance.
+  static void deleteHandle(long handle) {
+    delete(handle);
+  }
+
+  // Returns true if no other Tensor, nor the TensorFlow runtime, refers to the memory of the C
+  // TF_Tensor object. For example, the output of a Session.run() may share memory with an input
+  // that was fed to it.
+  static boolean isUnshared(long handle) {
+    return unshared(handle);
+  }
+
   private long nativeHandle;
   private DataType dtype;
   private long[] shapeCopy = null;
+  private TensorPool pool = null;
+  private TensorPool.Key poolKey = null;
+  // True if the memory of this Tensor belongs to something else: a wrapped buffer, which may be a
+  // read-only file mapping, or the Tensor it was sliced from. Such memory must not be written to.
+  private boolean borrowed = false;
+  // Lazily created views of the tensor memory, shared by the methods reading and writing it so
+  // that the JNI calls creating them are made at most once.
+  private volatile ByteBuffer[] nativeBuffers = null;
+  private MemoryTracker.Ref trackerRef = null;
 
   private Tensor() {}
 
-  private ByteBuffer buffer() {
-    return buffer(nativeHandle).order(ByteOrder.nativeOrder());
+  // Registers a newly created Tensor with the MemoryTracker, if memory tracking is enabled.
+  private Tensor tracked() {
+    trackerRef = MemoryTracker.track(this, nativeHandle, dtype);
+    return this;
+  }
+
+  // Returns the cached views of consecutive chunks of the tensor memory. Tensors that fit in a
+  // single ByteBuffer have a single chunk. Callers must not modify the position or limit of the
+  // returned buffers.
+  private ByteBuffer[] nativeBuffers() {
+    ByteBuffer[] b = nativeBuffers;
+    if (b == null) {
+      long size = numBytes();
+      long chunkBytes = size <= Integer.MAX_VALUE ? size : MAX_CHUNK_BYTES;
+      int n = chunkBytes == 0 ? 1 : (int) ((size + chunkBytes - 1) / chunkBytes);
+      b = new ByteBuffer[n];
+      for (int i = 0; i < n; ++i) {
+        long offset = i * chunkBytes;
+        int length = (int) Math.min(chunkBytes, size - offset);
+        b[i] = buffer(nativeHandle, offset, length).order(ByteOrder.nativeOrder());
+      }
+      nativeBuffers = b;
+    }
+    return b;
+  }
+
+  // Copies the remaining elements of src, a ByteBuffer or a buffer of the tensor's element type, to
+  // the tensor memory starting at byte offset. Returns the offset following the last byte written.
+  long put(Buffer src, long offset) {
+    ByteBuffer[] chunks = nativeBuffers();
+    long chunkBytes = chunks[0].capacity();
+    int elemBytes = (src instanceof ByteBuffer) ? 1 : elemByteSize(dtype);
+    while (src.hasRemaining()) {
+      int i = chunkBytes == 0 ? 0 : (int) (offset / chunkBytes);
+      if (i >= chunks.length || chunkBytes == 0) {
+        throw new BufferOverflowException();
+      }
+      ByteBuffer dst = chunks[i].duplicate().order(ByteOrder.nativeOrder());
+      dst.position((int) (offset - i * chunkBytes));
+      int n = Math.min(src.remaining(), dst.remaining() / elemBytes);
+      int limit = src.limit();
+      src.limit(src.position() + n);
+      transfer(src, dst, true);
+      src.limit(limit);
+      offset += (long) n * elemBytes;
+    }
+    return offset;
+  }
+
+  // Copies the data of this tensor into dst if both have the same numeric type and shape, and dst
+  // owns its memory. Returns false, leaving dst unmodified, otherwise.
+  boolean copyInto(Tensor dst) {
+    if (dst.borrowed
+        || dtype != dst.dtype
+        || dtype == DataType.STRING
+        || !Arrays.equals(shapeCopy, dst.shapeCopy)) {
+      return false;
+    }
+    long offset = 0;
+    for (ByteBuffer chunk : nativeBuffers()) {
+      offset = dst.put(chunk.duplicate(), offset);
+    }
+    return true;
+  }
+
+  // Copies the tensor data, consisting of n elements of dst, to dst.
+  private void get(Buffer dst, long n) {
+    if (dst.remaining() < n) {
+      throw new BufferOverflowException();
+    }
+    for (ByteBuffer chunk : nativeBuffers()) {
+      transfer(dst, chunk.duplicate().order(ByteOrder.nativeOrder()), false);
+    }
   }
 
-  private static IllegalArgumentException incompatibleBuffer(Buffer buf, DataType dataType) {
+  // Copies the remaining elements of buf (a ByteBuffer or a typed buffer) to (toTensor == true) or
+  // from the remaining bytes of the view of tensor memory mem, advancing the position of buf.
+  private static void transfer(Buffer buf, ByteBuffer mem, boolean toTensor) {
+    if (buf instanceof ByteBuffer) {
+      if (toTensor) {
+        mem.put((ByteBuffer) buf);
+      } else {
+        ((ByteBuffer) buf).put(mem);
+      }
+    } else if (buf instanceof IntBuffer) {
+      if (toTensor) {
+        mem.asIntBuffer().put((IntBuffer) buf);
+      } else {
+        ((IntBuffer) buf).put(mem.asIntBuffer());
+      }
+    } else if (buf instanceof FloatBuffer) {
+      if (toTensor) {
+        mem.asFloatBuffer().put((FloatBuffer) buf);
+      } else {
+        ((FloatBuffer) buf).put(mem.asFloatBuffer());
+      }
+    } else if (buf instanceof DoubleBuffer) {
+      if (toTensor) {
+        mem.asDoubleBuffer().put((DoubleBuffer) buf);
+      } else {
+        ((DoubleBuffer) buf).put(mem.asDoubleBuffer());
+      }
+    } else if (buf instanceof LongBuffer) {
+      if (toTensor) {
+        mem.asLongBuffer().put((LongBuffer) buf);
+      } else {
+        ((LongBuffer) buf).put(mem.asLongBuffer());
+      }
+    } else if (buf instanceof ShortBuffer) {
+      if (toTensor) {
+        mem.asShortBuffer().put((ShortBuffer) buf);
+      } else {
+        ((ShortBuffer) buf).put(mem.asShortBuffer());
+      }
+    } else {
+      throw new IllegalArgumentException("unsupported buffer type " + buf.getClass().getName());
+    }
+  }
+
+  // Size of the chunks of memory of tensors that do not fit in a single ByteBuffer. A multiple of
+  // the size of all fixed-size element types, so that no element spans two chunks.
+  private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+  private void throwExceptionIfNotSliceable() {
+    if (shapeCopy.length == 0) {
+      throw new IllegalArgumentException("cannot slice a scalar Tensor");
+    }
+    if (dtype == DataType.STRING) {
+      // The elements of a STRING tensor are not stored contiguously.
+      throw new IllegalArgumentException("cannot slice a STRING Tensor");
+    }
+  }
+
+  // Returns the number of bytes of each element of the first dimension of this Tensor.
+  private long rowBytes() {
+    return elemByteSize(dtype) * numElements(Arrays.copyOfRange(shapeCopy, 1, shapeCopy.length));
+  }
+
+  // Creates a Tensor of the given shape over nbytes of the memory of this Tensor, starting at
+  // byte offset.
+  private Tensor sliceOf(long[] shape, long offset, long nbytes) {
+    Tensor t = new Tensor();
+    t.dtype = dtype;
+    t.shapeCopy = shape;
+    t.nativeHandle = allocateSlice(nativeHandle, shape, offset, nbytes);
+    t.borrowed = true;
+    return t.tracked();
+  }
+
+  private IllegalArgumentException incompatibleView(Class<? extends Buffer> viewClass) {
+    return new IllegalArgumentException(
+        String.format("cannot view Tensor of type %s as a %s", dtype, viewClass.getName()));
+  }
+
+  static IllegalArgumentException incompatibleBuffer(Buffer buf, DataType dataType) {
     return new IllegalArgumentException(
         String.format("cannot use %s with Tensor of type %s", buf.getClass().getName(), dataType));
   }
 
-  private static IllegalArgumentException incompatibleBuffer(int numElements, long[] shape) {
+  static IllegalArgumentException incompatibleBuffer(long numElements, long[] shape) {
     return new IllegalArgumentException(
         String.format(
             "buffer with %d elements is not compatible with a Tensor with shape %s",
             numElements, Arrays.toString(shape)));
   }
 
-  private static int numElements(long[] shape) {
+  static long numElements(long[] shape) {
     // assumes a fully-known shape
-    int n = 1;
+    long n = 1;
     for (int i = 0; i < shape.length; i++) {
-      n *= (int) shape[i];
+      n *= shape[i];
     }
     return n;
   }
 
-  private static int elemByteSize(DataType dataType) {
+  static int elemByteSize(DataType dataType) {
     switch (dataType) {
       case UINT8:
+      case INT8:
+      case QUINT8:
         return 1;
+      case INT16:
+      case BFLOAT16:
+      case HALF:
+        return 2;
       case FLOAT:
       case INT32:
         return 4;
@@ -512,11 +1190,27 @@ public final class Tensor implements AutoCloseable {
     throw new IllegalArgumentException("DataType " + dataType + " is not supported yet");
   }
 
+  // Returns true for the types whose elements are accessed through a ShortBuffer.
+  private static boolean isShortType(DataType dataType) {
+    return dataType == DataType.INT16
+        || dataType == DataType.HALF
+        || dataType == DataType.BFLOAT16;
+  }
+
   private static DataType dataTypeOf(Object o) {
+    if (stringDimensions(o.getClass()) >= 0) {
+      return DataType.STRING;
+    }
     if (o.getClass().isArray()) {
       if (Array.getLength(o) == 0) {
         throw new IllegalArgumentException("cannot create Tensors with a 0 dimension");
       }
+      // Arrays of primitives (or their boxed types) are identified by their class, without
+      // accessing (and boxing) any of their elements.
+      DataType dt = dataTypeOfClass(elementClass(o.getClass()));
+      if (dt != null) {
+        return dt;
+      }
       // byte[] is a DataType.STRING scalar.
       Object e = Array.get(o, 0);
       if (Byte.class.isInstance(e) || byte.class.isInstance(e)) {
@@ -524,23 +1218,53 @@ public final class Tensor implements AutoCloseable {
       }
       return dataTypeOf(e);
     }
-    if (Float.class.isInstance(o) || float.class.isInstance(o)) {
+    DataType dt = dataTypeOfClass(o.getClass());
+    if (dt == null) {
+      throw new IllegalArgumentException("cannot create Tensors of " + o.getClass().getName());
+    }
+    return dt;
+  }
+
+  // Returns the DataType of the elements of Java type c, or null if c is not supported.
+  private static DataType dataTypeOfClass(Class<?> c) {
+    if (c == float.class || c == Float.class) {
       return DataType.FLOAT;
-    } else if (Double.class.isInstance(o) || double.class.isInstance(o)) {
+    } else if (c == double.class || c == Double.class) {
       return DataType.DOUBLE;
-    } else if (Integer.class.isInstance(o) || int.class.isInstance(o)) {
+    } else if (c == int.class || c == Integer.class) {
       return DataType.INT32;
-    } else if (Long.class.isInstance(o) || long.class.isInstance(o)) {
+    } else if (c == long.class || c == Long.class) {
       return DataType.INT64;
-    } else if (Boolean.class.isInstance(o) || boolean.class.isInstance(o)) {
+    } else if (c == boolean.class || c == Boolean.class) {
       return DataType.BOOL;
-    } else {
-      throw new IllegalArgumentException("cannot create Tensors of " + o.getClass().getName());
+    } else if (c == short.class || c == Short.class) {
+      return DataType.INT16;
     }
+    return null;
+  }
+
+  // Returns the innermost component type of the array type c, or c itself if c is not an array.
+  private static Class<?> elementClass(Class<?> c) {
+    while (c.isArray()) {
+      c = c.getComponentType();
+    }
+    return c;
   }
 
   private static int numDimensions(Object o) {
+    int stringDims = stringDimensions(o.getClass());
+    if (stringDims >= 0) {
+      return stringDims;
+    }
     if (o.getClass().isArray()) {
+      if (dataTypeOfClass(elementClass(o.getClass())) != null) {
+        // The rank of an array of primitives is determined by its class.
+        int n = 0;
+        for (Class<?> c = o.getClass(); c.isArray(); c = c.getComponentType()) {
+          ++n;
+        }
+        return n;
+      }
       // byte[] is a DataType.STRING scalar.
       Object e = Array.get(o, 0);
       if (Byte.class.isInstance(e) || byte.class.isInstance(e)) {
@@ -551,6 +1275,53 @@ public final class Tensor implements AutoCloseable {
     return 0;
   }
 
+  // Returns the number of dimensions of the DataType.STRING tensor represented by instances of c,
+  // where byte[] is a scalar, or -1 if c does not represent a STRING tensor. Unlike
+  // numDimensions(Object), this does not inspect array elements, which may be null in a
+  // destination for copyTo().
+  private static int stringDimensions(Class<?> c) {
+    int n = -1;
+    while (c.isArray()) {
+      c = c.getComponentType();
+      ++n;
+    }
+    return c == byte.class ? n : -1;
+  }
+
+  // Copies the byte[] elements of a dims-dimensional array of byte[] into dst, starting at index
+  // pos, in row-major order. Returns the index following the last element copied.
+  private static int flattenBytes(Object src, int dims, byte[][] dst, int pos) {
+    if (dims == 1) {
+      for (byte[] e : (byte[][]) src) {
+        if (e == null) {
+          throw new IllegalArgumentException("cannot create STRING Tensors with null elements");
+        }
+        dst[pos++] = e;
+      }
+      return pos;
+    }
+    for (Object e : (Object[]) src) {
+      pos = flattenBytes(e, dims - 1, dst, pos);
+    }
+    return pos;
+  }
+
+  // Inverse of flattenBytes(): replaces the byte[] elements of the dims-dimensional array dst with
+  // the elements of src, starting at index pos. Returns the index following the last element used.
+  private static int unflattenBytes(byte[][] src, Object dst, int dims, int pos) {
+    if (dims == 1) {
+      byte[][] d = (byte[][]) dst;
+      for (int i = 0; i < d.length; ++i) {
+        d[i] = src[pos++];
+      }
+      return pos;
+    }
+    for (Object e : (Object[]) dst) {
+      pos = unflattenBytes(src, e, dims - 1, pos);
+    }
+    return pos;
+  }
+
   private static void fillShape(Object o, int dim, long[] shape) {
     if (shape == null || dim == shape.length) {
       return;
@@ -562,11 +1333,76 @@ public final class Tensor implements AutoCloseable {
       throw new IllegalArgumentException(
           String.format("mismatched lengths (%d and %d) in dimension %d", shape[dim], len, dim));
     }
-    for (int i = 0; i < len; ++i) {
-      fillShape(Array.get(o, i), dim + 1, shape);
+    if (dim + 1 == shape.length) {
+      // The elements of the innermost dimension are scalars, which need not be visited.
+      return;
+    }
+    for (Object e : (Object[]) o) {
+      fillShape(e, dim + 1, shape);
     }
   }
 
+  // Copies the rows (i.e., the elements of the outermost dimension) of a multi-dimensional array to
+  // (write == true) or from this tensor, using multiple threads.
+  private void copyRows(Object[] rows, boolean write) {
+    long rowBytes = (long) elemByteSize(dtype) * numElements(shapeCopy) / rows.length;
+    CopyPool.INSTANCE.invoke(
+        new RowCopy(nativeHandle, rows, numDimensions() - 1, rowBytes, 0, rows.length, write));
+  }
+
+  // Copies a range of rows of a multi-dimensional array to or from a tensor, recursively splitting
+  // the range across the threads of a ForkJoinPool.
+  private static final class RowCopy extends RecursiveAction {
+    RowCopy(
+        long handle, Object[] rows, int rowDims, long rowBytes, int start, int end, boolean write) {
+      this.handle = handle;
+      this.rows = rows;
+      this.rowDims = rowDims;
+      this.rowBytes = rowBytes;
+      this.start = start;
+      this.end = end;
+      this.write = write;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > 1 && (end - start) * rowBytes > MIN_TASK_BYTES) {
+        int mid = (start + end) >>> 1;
+        invokeAll(
+            new RowCopy(handle, rows, rowDims, rowBytes, start, mid, write),
+            new RowCopy(handle, rows, rowDims, rowBytes, mid, end, write));
+        return;
+      }
+      for (int i = start; i < end; ++i) {
+        if (write) {
+          setValueAt(handle, rows[i], rowDims, i * rowBytes);
+        } else {
+          readNDArrayAt(handle, rows[i], rowDims, i * rowBytes);
+        }
+      }
+    }
+
+    private static final long serialVersionUID = 1L;
+    // Ranges smaller than this are copied by a single thread.
+    private static final long MIN_TASK_BYTES = 4L << 20;
+
+    private final long handle;
+    private final Object[] rows;
+    private final int rowDims;
+    private final long rowBytes;
+    private final int start;
+    private final int end;
+    private final boolean write;
+  }
+
+  // Holder for the ForkJoinPool used to copy large arrays, created only when first needed.
+  private static final class CopyPool {
+    static final ForkJoinPool INSTANCE = new ForkJoinPool();
+  }
+
+  // Arrays of at least this many bytes are copied to and from tensors using multiple threads.
+  private static final int PARALLEL_COPY_THRESHOLD = 32 << 20;
+
   private void throwExceptionIfTypeIsIncompatible(Object o) {
     if (numDimensions(o) != numDimensions()) {
       throw new IllegalArgumentException(
@@ -596,9 +1432,20 @@ public final class Tensor implements AutoCloseable {
 
   private static native long allocateScalarBytes(byte[] value);
 
+  private static native long allocateNonScalarBytes(long[] shape, byte[][] value);
+
+  private static native long allocateWrapped(
+      int dtype, long[] shape, Buffer data, long offset, long byteSize);
+
+  private static native long allocateSlice(long handle, long[] shape, long offset, long byteSize);
+
   private static native void delete(long handle);
 
-  private static native ByteBuffer buffer(long handle);
+  private static native boolean unshared(long handle);
+
+  private static native long byteSize(long handle);
+
+  private static native ByteBuffer buffer(long handle, long offset, int length);
 
   private static native int dtype(long handle);
 
@@ -606,6 +1453,8 @@ public final class Tensor implements AutoCloseable {
 
   private static native void setValue(long handle, Object value);
 
+  private static native void setValueAt(long handle, Object value, int numDims, long offset);
+
   private static native float scalarFloat(long handle);
 
   private static native double scalarDouble(long handle);
@@ -618,8 +1467,12 @@ public final class Tensor implements AutoCloseable {
 
   private static native byte[] scalarBytes(long handle);
 
+  private static native byte[][] stringElements(long handle);
+
   private static native void readNDArray(long handle, Object value);
 
+  private static native void readNDArrayAt(long handle, Object value, int numDims, long offset);
+
   static {
     TensorFlow.init();
   }
@@ -29,6 +29,64 @@ public final class TensorFlow {
    */
   public static native byte[] registeredOpList();
 
+  /**
+   * Starts accounting for the native memory of {@link Tensor}s, and detecting Tensors that are not
+   * closed.
+   *
+   * <p>Tensors created after this method is invoked are tracked until they are closed, and reported
+   * by {@link #memoryStats()}. Tracked Tensors that are garbage collected without having been
+   * closed are counted by {@link MemoryStats#leaked()}, and their memory is not released. Such
+   * Tensors are detected when Tensors are created or when {@link #memoryStats()} is invoked.
+   * Setting the {@code org.tensorflow.MemoryTracker.DEBUG} system property additionally prints a
+   * report of each of them to {@code System.err}.
+   *
+   * <p>Tracking adds overhead to the creation of every Tensor, and should be used for diagnostics.
+   *
+   * @param recordAllocationSites if true, the stack trace of the creation of each Tensor is
+   *     recorded, so that {@link MemoryStats#byAllocationSite()} and the reports of Tensors that
+   *     are not closed identify the code creating them. This is considerably more expensive.
+   */
+  public static void enableMemoryTracking(boolean recordAllocationSites) {
+    MemoryTracker.enable(recordAllocationSites, false);
+  }
+
+  /**
+   * Like {@link #enableMemoryTracking(boolean)}, optionally releasing the memory of Tensors that
+   * are garbage collected without having been closed.
+   *
+   * <p>Releasing is unsafe: a Tensor that is not closed may be garbage collected while one of its
+   * methods, or a {@link Session} run it was fed to, is still using its memory, which would then be
+   * freed by whichever thread next creates a Tensor. It may be used to keep a process that leaks
+   * Tensors alive, but should not be relied upon to manage their memory.
+   *
+   * @param recordAllocationSites see {@link #enableMemoryTracking(boolean)}.
+   * @param releaseLeakedMemory if true, the memory of Tensors that are not closed is released once
+   *     they are detected.
+   */
+  public static void enableMemoryTracking(
+      boolean recordAllocationSites, boolean releaseLeakedMemory) {
+    MemoryTracker.enable(recordAllocationSites, releaseLeakedMemory);
+  }
+
+  /**
+   * Stops tracking newly created {@link Tensor}s.
+   *
+   * <p>Tensors that were created while tracking was enabled remain tracked until they are closed.
+   */
+  public static void disableMemoryTracking() {
+    MemoryTracker.disable();
+  }
+
+  /**
+   * Returns a snapshot of the native memory held by live {@link Tensor}s.
+   *
+   * <p>Only Tensors created while memory tracking was enabled are accounted for, see {@link
+   * #enableMemoryTracking(boolean)}.
+   */
+  public static MemoryStats memoryStats() {
+    return MemoryTracker.snapshot();
+  }
+
   private TensorFlow() {}
 
   /** Load the TensorFlow runtime C library. */
@@ -16,7 +16,7 @@ limitations under the License.
 package org.tensorflow;
 
 /** Unchecked exception thrown when executing TensorFlow Graphs. */
-public final class TensorFlowException extends RuntimeException {
+public class TensorFlowException extends RuntimeException {
   TensorFlowException(String message) {
     super(message);
   }
@@ -0,0 +1,478 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of {@link Tensor}s that recycles the native memory of closed Tensors.
+ *
+ * <p>Tensors created by a pool return their memory to the pool when {@link Tensor#close()} is
+ * invoked, instead of freeing it. A subsequent request for a Tensor with the same {@link DataType}
+ * and shape reuses that memory, avoiding a native allocation and deallocation. This is useful when
+ * repeatedly feeding identically shaped inputs to a {@link Session}. For example:
+ *
+ * <pre>{@code
+ * try (TensorPool pool = new TensorPool(64 << 20)) {
+ *   while (moreRequests()) {
+ *     try (Tensor x = pool.create(shape, nextInput());
+ *         Tensor y = s.runner().feed("x", x).fetch("y").run().get(0)) {
+ *       process(y);
+ *     }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Memory is recycled only if nothing else refers to it when the Tensor is closed (for example,
+ * the output of a {@link Session.Runner#run()} may share memory with one of its inputs). Recently
+ * released memory is kept in small per-thread caches, and the remainder in a pool shared by all
+ * threads. The total amount of memory held by the pool, including the per-thread caches, is bounded
+ * by {@code maxBytes}, beyond which the least recently used memory of the shared pool is freed,
+ * followed by the caches of terminated threads and then those of live threads.
+ *
+ * <p>Instances of a TensorPool are thread-safe.
+ *
+ * <p><b>WARNING:</b> Resources held by the pool <b>must</b> be explicitly freed by invoking {@link
+ * #close()}. Tensors created by the pool remain usable after the pool is closed, and free their
+ * memory when they are closed.
+ */
+public final class TensorPool implements AutoCloseable {
+
+  /**
+   * Create a pool that holds on to at most {@code maxBytes} bytes of memory of closed Tensors.
+   *
+   * @throws IllegalArgumentException if {@code maxBytes} is negative.
+   */
+  public TensorPool(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes cannot be negative, got " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Create an {@link DataType#INT32} Tensor with data from the given buffer.
+   *
+   * <p>Like {@link Tensor#create(long[], IntBuffer)}, but possibly reusing the memory of a closed
+   * Tensor.
+   *
+   * @param shape the tensor shape.
+   * @param data a buffer containing the tensor data.
+   * @throws IllegalArgumentException If the tensor shape is not compatible with the buffer
+   */
+  public Tensor create(long[] shape, IntBuffer data) {
+    Tensor t = acquire(DataType.INT32, shape, data.remaining());
+    t.put(data, 0);
+    return t;
+  }
+
+  /**
+   * Create a {@link DataType#FLOAT} Tensor with data from the given buffer.
+   *
+   * <p>Like {@link Tensor#create(long[], FloatBuffer)}, but possibly reusing the memory of a closed
+   * Tensor.
+   *
+   * @param shape the tensor shape.
+   * @param data a buffer containing the tensor data.
+   * @throws IllegalArgumentException If the tensor shape is not compatible with the buffer
+   */
+  public Tensor create(long[] shape, FloatBuffer data) {
+    Tensor t = acquire(DataType.FLOAT, shape, data.remaining());
+    t.put(data, 0);
+    return t;
+  }
+
+  /**
+   * Create a {@link DataType#DOUBLE} Tensor with data from the given buffer.
+   *
+   * <p>Like {@link Tensor#create(long[], DoubleBuffer)}, but possibly reusing the memory of a
+   * closed Tensor.
+   *
+   * @param shape the tensor shape.
+   * @param data a buffer containing the tensor data.
+   * @throws IllegalArgumentException If the tensor shape is not compatible with the buffer
+   */
+  public Tensor create(long[] shape, DoubleBuffer data) {
+    Tensor t = acquire(DataType.DOUBLE, shape, data.remaining());
+    t.put(data, 0);
+    return t;
+  }
+
+  /**
+   * Create an {@link DataType#INT64} Tensor with data from the given buffer.
+   *
+   * <p>Like {@link Tensor#create(long[], LongBuffer)}, but possibly reusing the memory of a closed
+   * Tensor.
+   *
+   * @param shape the tensor shape.
+   * @param data a buffer containing the tensor data.
+   * @throws IllegalArgumentException If the tensor shape is not compatible with the buffer
+   */
+  public Tensor create(long[] shape, LongBuffer data) {
+    Tensor t = acquire(DataType.INT64, shape, data.remaining());
+    t.put(data, 0);
+    return t;
+  }
+
+  /**
+   * Create a Tensor with data from the given buffer.
+   *
+   * <p>Like {@link Tensor#create(DataType, long[], ByteBuffer)}, but possibly reusing the memory of
+   * a closed Tensor. {@link DataType#STRING} tensors, whose size depends on their contents, are not
+   * supported.
+   *
+   * @param dataType the tensor datatype.
+   * @param shape the tensor shape.
+   * @param data a buffer containing the tensor data.
+   * @throws IllegalArgumentException If the tensor datatype or shape is not compatible with the
+   *     buffer
+   */
+  public Tensor create(DataType dataType, long[] shape, ByteBuffer data) {
+    if (dataType == DataType.STRING) {
+      throw new IllegalArgumentException("TensorPool does not support STRING tensors");
+    }
+    int elemBytes = Tensor.elemByteSize(dataType);
+    if (data.remaining() % elemBytes != 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "ByteBuffer with %d bytes is not compatible with a %s Tensor (%d bytes/element)",
+              data.remaining(), dataType.toString(), elemBytes));
+    }
+    Tensor t = acquire(dataType, shape, data.remaining() / elemBytes);
+    t.put(data, 0);
+    return t;
+  }
+
+  /** Returns the number of Tensors created by reusing the memory of a closed Tensor. */
+  public long hits() {
+    return hits.get();
+  }
+
+  /** Returns the number of Tensors created by allocating new memory. */
+  public long misses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of times memory was freed to keep the pool within its byte limit, or because
+   * the thread caching it terminated.
+   */
+  public long evictions() {
+    return evictions.get();
+  }
+
+  /** Returns the number of bytes of memory currently held by the pool. */
+  public long pooledBytes() {
+    return pooledBytes.get();
+  }
+
+  /**
+   * Release the memory held by the pool.
+   *
+   * <p>Tensors created by the pool remain valid, but their memory is freed rather than recycled
+   * when they are closed. The pool is not usable after close returns.
+   */
+  @Override
+  public void close() {
+    List<Long> handles = new ArrayList<Long>();
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (ArrayDeque<Long> q : free.values()) {
+        handles.addAll(q);
+      }
+      free.clear();
+      for (ThreadCache c : threadCaches) {
+        c.drainTo(handles);
+      }
+      threadCaches.clear();
+    }
+    for (Long h : handles) {
+      Tensor.deleteHandle(h);
+    }
+    pooledBytes.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TensorPool(hits=%d, misses=%d, evictions=%d, pooledBytes=%d, maxBytes=%d)",
+        hits(), misses(), evictions(), pooledBytes(), maxBytes);
+  }
+
+  // Invoked by Tensor.close() with the key the Tensor was acquired under. Returns true if the pool
+  // took ownership of the handle, in which case the caller must not delete it.
+  boolean recycle(long handle, Key key) {
+    if (key.numBytes > maxBytes || !Tensor.isUnshared(handle)) {
+      return false;
+    }
+    if (pooledBytes.addAndGet(key.numBytes) > maxBytes && !evict()) {
+      pooledBytes.addAndGet(-key.numBytes);
+      return false;
+    }
+    if (threadCache.get().offer(key, handle)) {
+      return true;
+    }
+    synchronized (lock) {
+      if (!closed) {
+        ArrayDeque<Long> q = free.get(key);
+        if (q == null) {
+          q = new ArrayDeque<Long>();
+          free.put(key, q);
+        }
+        q.push(handle);
+        return true;
+      }
+    }
+    pooledBytes.addAndGet(-key.numBytes);
+    return false;
+  }
+
+  private Tensor acquire(DataType dataType, long[] shape, int nBuffered) {
+    Key key = new Key(dataType, shape);
+    if (nBuffered != Tensor.numElements(key.shape)) {
+      throw Tensor.incompatibleBuffer(nBuffered, shape);
+    }
+    long handle = threadCache.get().poll(key);
+    if (handle == 0) {
+      synchronized (lock) {
+        if (closed) {
+          throw new IllegalStateException("close() has been called on the TensorPool");
+        }
+        ArrayDeque<Long> q = free.get(key);
+        if (q != null) {
+          handle = q.pop();
+          if (q.isEmpty()) {
+            free.remove(key);
+          }
+        }
+      }
+    }
+    if (handle != 0) {
+      pooledBytes.addAndGet(-key.numBytes);
+      hits.incrementAndGet();
+    } else {
+      handle = Tensor.allocateHandle(dataType, key.shape);
+      misses.incrementAndGet();
+    }
+    return Tensor.fromPool(this, handle, key);
+  }
+
+  // Free least recently used memory in the shared pool, then memory cached by threads, until the
+  // pool is within its byte limit. Returns false if that is not possible.
+  private boolean evict() {
+    while (pooledBytes.get() > maxBytes) {
+      List<Long> handles = new ArrayList<Long>();
+      long numBytes;
+      synchronized (lock) {
+        Iterator<Map.Entry<Key, ArrayDeque<Long>>> it = free.entrySet().iterator();
+        if (it.hasNext()) {
+          Map.Entry<Key, ArrayDeque<Long>> lru = it.next();
+          handles.add(lru.getValue().removeLast());
+          numBytes = lru.getKey().numBytes;
+          if (lru.getValue().isEmpty()) {
+            it.remove();
+          }
+        } else {
+          numBytes = purgeThreadCaches(handles);
+          for (int i = 0; i < threadCaches.size() && handles.isEmpty(); ++i) {
+            numBytes = threadCaches.get(i).evictOne(handles);
+          }
+          if (handles.isEmpty()) {
+            return false;
+          }
+        }
+      }
+      delete(handles, numBytes);
+    }
+    return true;
+  }
+
+  // Removes the caches of terminated threads, moving their handles to dst. Returns the number of
+  // bytes of these handles. Must be called with lock held.
+  private long purgeThreadCaches(List<Long> dst) {
+    long numBytes = 0;
+    for (Iterator<ThreadCache> it = threadCaches.iterator(); it.hasNext(); ) {
+      ThreadCache c = it.next();
+      if (!c.isOwnerAlive()) {
+        numBytes += c.drainTo(dst);
+        it.remove();
+      }
+    }
+    return numBytes;
+  }
+
+  private void delete(List<Long> handles, long numBytes) {
+    if (handles.isEmpty()) {
+      return;
+    }
+    pooledBytes.addAndGet(-numBytes);
+    evictions.addAndGet(handles.size());
+    for (Long h : handles) {
+      Tensor.deleteHandle(h);
+    }
+  }
+
+  // The DataType and shape of a Tensor, identifying Tensors whose memory is interchangeable. Never
+  // exposed outside the pool and Tensor, so the shape cannot be changed by callers.
+  static final class Key {
+    Key(DataType dataType, long[] shape) {
+      this.dataType = dataType;
+      this.shape = Arrays.copyOf(shape, shape.length);
+      this.numBytes = (long) Tensor.elemByteSize(dataType) * Tensor.numElements(this.shape);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * dataType.hashCode() + Arrays.hashCode(shape);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return dataType == that.dataType && Arrays.equals(shape, that.shape);
+    }
+
+    final DataType dataType;
+    final long[] shape;
+    final long numBytes;
+  }
+
+  // A small cache of recently released memory, used by a single thread to avoid contention on the
+  // shared pool. Synchronized so that other threads can evict its memory or drain it on close().
+  private static final class ThreadCache {
+    synchronized boolean offer(Key key, long handle) {
+      if (closed || size >= MAX_THREAD_CACHED) {
+        return false;
+      }
+      ArrayDeque<Long> q = handles.get(key);
+      if (q == null) {
+        q = new ArrayDeque<Long>();
+        handles.put(key, q);
+      }
+      q.push(handle);
+      ++size;
+      numBytes += key.numBytes;
+      return true;
+    }
+
+    synchronized long poll(Key key) {
+      ArrayDeque<Long> q = handles.get(key);
+      if (q == null || q.isEmpty()) {
+        return 0;
+      }
+      --size;
+      numBytes -= key.numBytes;
+      return q.pop();
+    }
+
+    // Moves the least recently cached handle of some shape to dst, returning its number of bytes.
+    synchronized long evictOne(List<Long> dst) {
+      for (Map.Entry<Key, ArrayDeque<Long>> e : handles.entrySet()) {
+        if (!e.getValue().isEmpty()) {
+          dst.add(e.getValue().removeLast());
+          --size;
+          numBytes -= e.getKey().numBytes;
+          return e.getKey().numBytes;
+        }
+      }
+      return 0;
+    }
+
+    // Moves all the handles to dst and disables the cache, returning the number of bytes moved.
+    synchronized long drainTo(List<Long> dst) {
+      closed = true;
+      for (ArrayDeque<Long> q : handles.values()) {
+        dst.addAll(q);
+      }
+      handles.clear();
+      size = 0;
+      long ret = numBytes;
+      numBytes = 0;
+      return ret;
+    }
+
+    boolean isOwnerAlive() {
+      Thread t = owner.get();
+      return t != null && t.isAlive();
+    }
+
+    // Weak so that the cache does not keep a terminated thread reachable.
+    private final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+    private final Map<Key, ArrayDeque<Long>> handles = new HashMap<Key, ArrayDeque<Long>>();
+    private int size = 0;
+    private long numBytes = 0;
+    private boolean closed = false;
+  }
+
+  // Maximum number of released Tensors kept in each per-thread cache.
+  private static final int MAX_THREAD_CACHED = 4;
+
+  private final long maxBytes;
+
+  private final Object lock = new Object();
+  // Memory shared by all threads, in least recently used order.
+  private final LinkedHashMap<Key, ArrayDeque<Long>> free =
+      new LinkedHashMap<Key, ArrayDeque<Long>>(16, 0.75f, true);
+  private final List<ThreadCache> threadCaches = new ArrayList<ThreadCache>();
+  private boolean closed = false;
+
+  private final ThreadLocal<ThreadCache> threadCache =
+      new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+          ThreadCache c = new ThreadCache();
+          // Threads come and go, so the caches of terminated threads are removed as new ones are
+          // added.
+          List<Long> handles = new ArrayList<Long>();
+          long numBytes = 0;
+          synchronized (lock) {
+            if (closed) {
+              c.drainTo(handles);
+            } else {
+              numBytes = purgeThreadCaches(handles);
+              threadCaches.add(c);
+            }
+          }
+          delete(handles, numBytes);
+          return c;
+        }
+      };
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong pooledBytes = new AtomicLong();
+}
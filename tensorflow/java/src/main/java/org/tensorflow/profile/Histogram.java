@@ -0,0 +1,121 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.profile;
+
+import java.util.Arrays;
+
+/**
+ * A distribution of non-negative values, such as latencies or sizes.
+ *
+ * <p>Values are counted in buckets whose bounds are consecutive powers of two, so percentiles are
+ * accurate to within a factor of two while the histogram stays small regardless of the number of
+ * values. Histograms returned by a {@link Profiler} are snapshots and do not change.
+ */
+public final class Histogram {
+
+  /** Returns the number of values. */
+  public long count() {
+    return count;
+  }
+
+  /** Returns the sum of the values. */
+  public long sum() {
+    return sum;
+  }
+
+  /** Returns the smallest value, or 0 if there are none. */
+  public long min() {
+    return count == 0 ? 0 : min;
+  }
+
+  /** Returns the largest value, or 0 if there are none. */
+  public long max() {
+    return max;
+  }
+
+  /** Returns the average of the values, or 0 if there are none. */
+  public double mean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * Returns an upper bound of the {@code p}-th percentile of the values, or 0 if there are none.
+   *
+   * @param p the percentile, between 0 and 100
+   * @throws IllegalArgumentException if {@code p} is out of range
+   */
+  public long percentile(double p) {
+    if (p < 0 || p > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100, got " + p);
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; ++i) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        return Math.max(min, Math.min(max, upperBound(i)));
+      }
+    }
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d mean=%.1f min=%d p50=%d p99=%d max=%d",
+        count, mean(), min(), percentile(50), percentile(99), max);
+  }
+
+  Histogram() {}
+
+  Histogram(Histogram h) {
+    count = h.count;
+    sum = h.sum;
+    min = h.min;
+    max = h.max;
+    buckets = Arrays.copyOf(h.buckets, h.buckets.length);
+  }
+
+  void add(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    ++buckets[bucket(value)];
+    ++count;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  // Bucket 0 holds 0, and bucket i > 0 holds the values in [2^(i-1), 2^i).
+  private static int bucket(long value) {
+    return 64 - Long.numberOfLeadingZeros(value);
+  }
+
+  // The largest value of a bucket, which for bucket 63 overflows to Long.MAX_VALUE.
+  private static long upperBound(int bucket) {
+    return (1L << bucket) - 1;
+  }
+
+  private long[] buckets = new long[64];
+  private long count = 0;
+  private long sum = 0;
+  private long min = Long.MAX_VALUE;
+  private long max = 0;
+}
@@ -0,0 +1,80 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.profile;
+
+/**
+ * Execution statistics of an operation, or of all operations of a type, accumulated by a {@link
+ * Profiler}.
+ *
+ * <p>Instances are snapshots and do not change.
+ */
+public final class OpStats {
+
+  /** Returns the name of the operation, or the operation type for per-type statistics. */
+  public String name() {
+    return name;
+  }
+
+  /** Returns the number of executions of the operation in the profiled runs. */
+  public long count() {
+    return latencyMicros.count();
+  }
+
+  /** Returns the total execution time, in microseconds. */
+  public long totalMicros() {
+    return latencyMicros.sum();
+  }
+
+  /** Returns the distribution of the execution time of each execution, in microseconds. */
+  public Histogram latencyMicros() {
+    return latencyMicros;
+  }
+
+  /** Returns the distribution of the bytes allocated by each execution. */
+  public Histogram allocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d runs, %d us total, latency (us) [%s], allocated bytes [%s]",
+        name, count(), totalMicros(), latencyMicros, allocatedBytes);
+  }
+
+  OpStats(String name) {
+    this(name, new Histogram(), new Histogram());
+  }
+
+  private OpStats(String name, Histogram latencyMicros, Histogram allocatedBytes) {
+    this.name = name;
+    this.latencyMicros = latencyMicros;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  void add(long micros, long bytes) {
+    latencyMicros.add(micros);
+    allocatedBytes.add(bytes);
+  }
+
+  OpStats snapshot() {
+    return new OpStats(name, new Histogram(latencyMicros), new Histogram(allocatedBytes));
+  }
+
+  private final String name;
+  private final Histogram latencyMicros;
+  private final Histogram allocatedBytes;
+}
@@ -0,0 +1,331 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.tensorflow.ProtoReader;
+import org.tensorflow.RunOptions;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+
+/**
+ * Collects per-operation execution statistics from a sample of the runs of a {@link Session}.
+ *
+ * <p>Tracing a run with {@link RunOptions.TraceLevel#FULL_TRACE} records the time and memory used
+ * by each of its operations, but slows it down noticeably. A Profiler traces only one run in every
+ * N, or at most one run per time interval, so that it can stay enabled in production:
+ *
+ * <pre>{@code
+ * Profiler profiler = Profiler.builder().sampleEvery(100).build();
+ * // For each request:
+ * List<Tensor> outputs = profiler.run(session.runner().feed("x", x).fetch("y"));
+ * // Periodically:
+ * for (OpStats op : profiler.topOpTypes(10)) {
+ *   System.out.println(op);
+ * }
+ * }</pre>
+ *
+ * <p>Statistics are accumulated both per operation and per operation type, and are available as
+ * latency and allocated memory {@link Histogram}s. Instances are thread-safe.
+ */
+public final class Profiler {
+
+  /** Create a builder of a Profiler, which by default traces one run in every 100. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Configuration of a {@link Profiler}. */
+  public static final class Builder {
+    /**
+     * Trace one run in every {@code n}. A value of 1 traces every run.
+     *
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    public Builder sampleEvery(int n) {
+      if (n < 1) {
+        throw new IllegalArgumentException("sampleEvery must be positive, got " + n);
+      }
+      sampleEvery = n;
+      intervalNanos = 0;
+      return this;
+    }
+
+    /**
+     * Trace at most one run per {@code interval}, instead of one in every N.
+     *
+     * @throws IllegalArgumentException if {@code interval} is not positive
+     */
+    public Builder sampleInterval(long interval, TimeUnit unit) {
+      if (interval <= 0) {
+        throw new IllegalArgumentException("sampleInterval must be positive, got " + interval);
+      }
+      intervalNanos = unit.toNanos(interval);
+      return this;
+    }
+
+    /** Create the Profiler. */
+    public Profiler build() {
+      return new Profiler(this);
+    }
+
+    private Builder() {}
+
+    private int sampleEvery = 100;
+    private long intervalNanos = 0;
+  }
+
+  /**
+   * Execute {@code runner}, tracing the run if it is sampled.
+   *
+   * <p>Sampled runs replace any options set with {@link Session.Runner#setOptions} by the options
+   * needed for tracing.
+   *
+   * @return the outputs of the run, see {@link Session.Runner#run()}
+   */
+  public List<Tensor> run(Session.Runner runner) {
+    runs.incrementAndGet();
+    if (!shouldSample()) {
+      return runner.run();
+    }
+    Session.Run r = runner.setOptions(TRACE_OPTIONS).runAndFetchMetadata();
+    try {
+      record(r.metadata);
+    } catch (RuntimeException e) {
+      for (Tensor t : r.outputs) {
+        if (t != null) {
+          t.close();
+        }
+      }
+      throw e;
+    }
+    return r.outputs;
+  }
+
+  /**
+   * Accumulate the statistics of a run traced by the caller.
+   *
+   * @param runMetadata a serialized <a
+   *     href="https://www.tensorflow.org/code/tensorflow/core/protobuf/config.proto">RunMetadata</a>
+   *     protocol buffer, as returned by {@link Session.Runner#runAndFetchMetadata()}
+   * @throws IllegalArgumentException if {@code runMetadata} cannot be parsed
+   */
+  public void record(byte[] runMetadata) {
+    List<NodeStats> nodes = new ArrayList<NodeStats>();
+    if (runMetadata != null) {
+      ProtoReader r = new ProtoReader(runMetadata);
+      while (r.next()) {
+        if (r.field() == 1) { // RunMetadata.step_stats
+          parseStepStats(r.readMessage(), nodes);
+        } else {
+          r.skip();
+        }
+      }
+    }
+    synchronized (lock) {
+      ++numSampledRuns;
+      for (NodeStats n : nodes) {
+        stats(byName, n.name).add(n.micros, n.bytes);
+        stats(byType, n.type).add(n.micros, n.bytes);
+      }
+    }
+  }
+
+  /** Returns the number of runs executed by {@link #run(Session.Runner)}. */
+  public long numRuns() {
+    return runs.get();
+  }
+
+  /** Returns the number of traced runs whose statistics have been accumulated. */
+  public long numSampledRuns() {
+    synchronized (lock) {
+      return numSampledRuns;
+    }
+  }
+
+  /** Returns the statistics of the {@code k} operations with the largest total execution time. */
+  public List<OpStats> topOps(int k) {
+    synchronized (lock) {
+      return top(byName, k);
+    }
+  }
+
+  /**
+   * Returns the statistics of the {@code k} operation types with the largest total execution time.
+   */
+  public List<OpStats> topOpTypes(int k) {
+    synchronized (lock) {
+      return top(byType, k);
+    }
+  }
+
+  /** Returns the statistics of the named operation, or null if it was not executed. */
+  public OpStats op(String name) {
+    synchronized (lock) {
+      OpStats s = byName.get(name);
+      return s == null ? null : s.snapshot();
+    }
+  }
+
+  /** Discard the accumulated statistics. */
+  public void reset() {
+    synchronized (lock) {
+      byName.clear();
+      byType.clear();
+      numSampledRuns = 0;
+    }
+  }
+
+  private Profiler(Builder b) {
+    sampleEvery = b.sampleEvery;
+    intervalNanos = b.intervalNanos;
+    nextSampleNanos = new AtomicLong(System.nanoTime());
+  }
+
+  private boolean shouldSample() {
+    if (intervalNanos == 0) {
+      return sampled.getAndIncrement() % sampleEvery == 0;
+    }
+    long now = System.nanoTime();
+    long next = nextSampleNanos.get();
+    return now - next >= 0 && nextSampleNanos.compareAndSet(next, now + intervalNanos);
+  }
+
+  // StepStats has the statistics of each device used by the run, and DeviceStepStats those of each
+  // operation executed on the device.
+  private static void parseStepStats(ProtoReader stepStats, List<NodeStats> nodes) {
+    while (stepStats.next()) {
+      if (stepStats.field() != 1) { // StepStats.dev_stats
+        stepStats.skip();
+        continue;
+      }
+      ProtoReader device = stepStats.readMessage();
+      while (device.next()) {
+        if (device.field() == 2) { // DeviceStepStats.node_stats
+          nodes.add(parseNodeStats(device.readMessage()));
+        } else {
+          device.skip();
+        }
+      }
+    }
+  }
+
+  private static NodeStats parseNodeStats(ProtoReader r) {
+    NodeStats n = new NodeStats();
+    String label = null;
+    while (r.next()) {
+      switch (r.field()) {
+        case 1: // node_name
+          n.name = r.readString();
+          break;
+        case 5: // all_end_rel_micros
+          n.micros = r.readVarint();
+          break;
+        case 6: // memory
+          n.bytes += parseTotalBytes(r.readMessage());
+          break;
+        case 8: // timeline_label
+          label = r.readString();
+          break;
+        default:
+          r.skip();
+      }
+    }
+    n.type = opType(label, n.name);
+    return n;
+  }
+
+  private static long parseTotalBytes(ProtoReader memory) {
+    long bytes = 0;
+    while (memory.next()) {
+      if (memory.field() == 2) { // AllocatorMemoryUsed.total_bytes
+        bytes = memory.readVarint();
+      } else {
+        memory.skip();
+      }
+    }
+    return bytes;
+  }
+
+  // The runtime labels each traced operation "name = Type(inputs)". Operations without a label,
+  // such as the _SOURCE and _SINK nodes, are grouped by name.
+  private static String opType(String label, String name) {
+    if (label != null) {
+      int start = label.indexOf(" = ");
+      int end = label.indexOf('(', start + 1);
+      if (start >= 0 && end > start + 3) {
+        return label.substring(start + 3, end);
+      }
+    }
+    return name;
+  }
+
+  private static OpStats stats(Map<String, OpStats> map, String key) {
+    OpStats s = map.get(key);
+    if (s == null) {
+      s = new OpStats(key);
+      map.put(key, s);
+    }
+    return s;
+  }
+
+  private static List<OpStats> top(Map<String, OpStats> map, int k) {
+    List<OpStats> all = new ArrayList<OpStats>(map.values());
+    Collections.sort(all, BY_TOTAL_TIME);
+    List<OpStats> ret = new ArrayList<OpStats>();
+    for (int i = 0; i < Math.min(k, all.size()); ++i) {
+      ret.add(all.get(i).snapshot());
+    }
+    return ret;
+  }
+
+  private static final class NodeStats {
+    String name = "";
+    String type;
+    long micros = 0;
+    long bytes = 0;
+  }
+
+  private static final Comparator<OpStats> BY_TOTAL_TIME =
+      new Comparator<OpStats>() {
+        @Override
+        public int compare(OpStats a, OpStats b) {
+          int c = Long.compare(b.totalMicros(), a.totalMicros());
+          return c != 0 ? c : a.name().compareTo(b.name());
+        }
+      };
+
+  private static final RunOptions TRACE_OPTIONS =
+      RunOptions.builder().traceLevel(RunOptions.TraceLevel.FULL_TRACE).build();
+
+  private final int sampleEvery;
+  private final long intervalNanos;
+  private final AtomicLong runs = new AtomicLong();
+  private final AtomicLong sampled = new AtomicLong();
+  private final AtomicLong nextSampleNanos;
+
+  private final Object lock = new Object();
+  private final Map<String, OpStats> byName = new HashMap<String, OpStats>();
+  private final Map<String, OpStats> byType = new HashMap<String, OpStats>();
+  private long numSampledRuns = 0;
+}
@@ -0,0 +1,584 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.tensorflow.DataType;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+
+/**
+ * Coalesces concurrent requests to a {@link Session} into batched executions.
+ *
+ * <p>Each request feeds tensors whose first dimension is the batch dimension, typically of size 1.
+ * Requests that arrive within a short delay of each other are concatenated along that dimension,
+ * executed with a single {@link Session} run, and the outputs are split back into the rows of each
+ * request. For models that do not saturate the machine with a single example, this trades a little
+ * latency for much higher throughput. For example:
+ *
+ * <pre>{@code
+ * try (BatchingSession batching =
+ *     BatchingSession.builder(bundle)
+ *         .feeds("x")
+ *         .fetches("y")
+ *         .maxBatchSize(32)
+ *         .maxDelay(2, TimeUnit.MILLISECONDS)
+ *         .build()) {
+ *   // From many threads:
+ *   try (Tensor x = Tensor.create(new float[][] {example});
+ *       Tensor y = batching.run(x).get(0)) {
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>A batch is executed once it holds {@code maxBatchSize} rows, or once its oldest request has
+ * waited {@code maxDelay}. With a {@linkplain Builder#targetLatency target latency}, the delay is
+ * adapted between 0 and {@code maxDelay}: it shrinks when requests exceed the target and grows
+ * while batches are not full and requests complete within the target.
+ *
+ * <p>Only requests whose feeds have the same {@link DataType}s and the same shapes apart from the
+ * first dimension are batched together. {@link DataType#STRING} feeds are not supported. Every
+ * fetched output must have a first dimension equal to the number of rows in the batch.
+ *
+ * <p>Instances are thread-safe. {@link #close()} stops accepting requests and waits for the pending
+ * ones to complete, but does not close the underlying {@link Session}.
+ */
+public final class BatchingSession implements AutoCloseable {
+
+  /** Create a builder of a BatchingSession over {@code session}. */
+  public static Builder builder(Session session) {
+    return new Builder(session);
+  }
+
+  /** Create a builder of a BatchingSession over the session of {@code bundle}. */
+  public static Builder builder(SavedModelBundle bundle) {
+    return new Builder(bundle.session());
+  }
+
+  /** Configuration of a {@link BatchingSession}. */
+  public static final class Builder {
+    /**
+     * Set the names of the outputs fed by each request, in order.
+     *
+     * <p>Names may be of the form <tt>operation_name:output_index</tt>, as with {@link
+     * Session.Runner#feed(String, Tensor)}.
+     */
+    public Builder feeds(String... names) {
+      feeds = Arrays.asList(names);
+      return this;
+    }
+
+    /** Set the names of the outputs fetched by each request, in order. */
+    public Builder fetches(String... names) {
+      fetches = Arrays.asList(names);
+      return this;
+    }
+
+    /** Set the maximum number of rows in a batch. Defaults to 32. */
+    public Builder maxBatchSize(int rows) {
+      if (rows < 1) {
+        throw new IllegalArgumentException("maxBatchSize must be positive, got " + rows);
+      }
+      maxBatchSize = rows;
+      return this;
+    }
+
+    /** Set the maximum time a request waits for other requests to batch with. Defaults to 1ms. */
+    public Builder maxDelay(long duration, TimeUnit unit) {
+      if (duration < 0) {
+        throw new IllegalArgumentException("maxDelay must not be negative, got " + duration);
+      }
+      maxDelayNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Adapt the batching delay so that requests complete within {@code duration} of their
+     * submission. By default the delay is fixed to {@code maxDelay}.
+     */
+    public Builder targetLatency(long duration, TimeUnit unit) {
+      if (duration <= 0) {
+        throw new IllegalArgumentException("targetLatency must be positive, got " + duration);
+      }
+      targetLatencyNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /** Set the number of batches that may execute concurrently. Defaults to 1. */
+    public Builder numThreads(int n) {
+      if (n < 1) {
+        throw new IllegalArgumentException("numThreads must be positive, got " + n);
+      }
+      numThreads = n;
+      return this;
+    }
+
+    /**
+     * Create the BatchingSession.
+     *
+     * @throws IllegalArgumentException if any of the feeds or fetches is not in the {@link
+     *     org.tensorflow.Graph} of the session
+     */
+    public BatchingSession build() {
+      if (feeds.isEmpty()) {
+        throw new IllegalArgumentException("at least one feed is required to batch requests");
+      }
+      return new BatchingSession(this);
+    }
+
+    private Builder(Session session) {
+      this.session = session;
+    }
+
+    private final Session session;
+    private List<String> feeds = Collections.emptyList();
+    private List<String> fetches = Collections.emptyList();
+    private int maxBatchSize = 32;
+    private long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    private long targetLatencyNanos = 0;
+    private int numThreads = 1;
+  }
+
+  /**
+   * Submit a request for batched execution.
+   *
+   * <p>The caller keeps ownership of {@code inputs}, which must not be closed before the returned
+   * {@link Future} completes, and assumes ownership of the {@link Tensor}s in its result.
+   *
+   * @param inputs the values of the feeds, in the order given to {@link Builder#feeds}, all with
+   *     the same size of the first dimension
+   * @throws IllegalArgumentException if the inputs cannot be batched
+   * @throws IllegalStateException if this BatchingSession has been closed
+   */
+  public Future<List<Tensor>> submit(Tensor... inputs) {
+    if (inputs.length != callable.numFeeds()) {
+      throw new IllegalArgumentException(
+          String.format("expected %d feeds, got %d", callable.numFeeds(), inputs.length));
+    }
+    long rows = -1;
+    for (Tensor t : inputs) {
+      if (t.dataType() == DataType.STRING) {
+        throw new IllegalArgumentException("STRING tensors cannot be batched");
+      }
+      if (t.numDimensions() == 0) {
+        throw new IllegalArgumentException("scalars cannot be batched");
+      }
+      long n = t.shape()[0];
+      if (rows >= 0 && n != rows) {
+        throw new IllegalArgumentException(
+            String.format("feeds have %d and %d rows, expected the same number", rows, n));
+      }
+      rows = n;
+    }
+    Request r = new Request(inputs, (int) rows);
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("submit() cannot be called after close()");
+      }
+      queue.add(r);
+      queuedRows += r.rows;
+      lock.notifyAll();
+    }
+    return r;
+  }
+
+  /**
+   * Execute a request as part of a batch, blocking until it completes.
+   *
+   * <p>Like {@link #submit(Tensor...)}, and the caller assumes ownership of the returned {@link
+   * Tensor}s.
+   */
+  public List<Tensor> run(Tensor... inputs) {
+    Future<List<Tensor>> f = submit(inputs);
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      f.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for a batch", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /** Returns a snapshot of the batching statistics since this BatchingSession was created. */
+  public Metrics metrics() {
+    synchronized (lock) {
+      return new Metrics(
+          numBatches, numRequests, numRows, totalQueueNanos, maxQueueNanos, delayNanos);
+    }
+  }
+
+  /** Statistics of the batches executed by a {@link BatchingSession}. */
+  public static final class Metrics {
+    /** The number of batches executed. */
+    public long numBatches() {
+      return numBatches;
+    }
+
+    /** The number of requests completed. */
+    public long numRequests() {
+      return numRequests;
+    }
+
+    /** The average number of rows per batch. */
+    public double meanBatchSize() {
+      return numBatches == 0 ? 0 : (double) numRows / numBatches;
+    }
+
+    /** The average time requests waited in the queue before their batch started executing. */
+    public long meanQueueWait(TimeUnit unit) {
+      long nanos = numRequests == 0 ? 0 : totalQueueNanos / numRequests;
+      return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** The longest time a request waited in the queue before its batch started executing. */
+    public long maxQueueWait(TimeUnit unit) {
+      return unit.convert(maxQueueNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** The current batching delay, which changes over time with a target latency. */
+    public long delay(TimeUnit unit) {
+      return unit.convert(delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Metrics(
+        long numBatches,
+        long numRequests,
+        long numRows,
+        long totalQueueNanos,
+        long maxQueueNanos,
+        long delayNanos) {
+      this.numBatches = numBatches;
+      this.numRequests = numRequests;
+      this.numRows = numRows;
+      this.totalQueueNanos = totalQueueNanos;
+      this.maxQueueNanos = maxQueueNanos;
+      this.delayNanos = delayNanos;
+    }
+
+    private final long numBatches;
+    private final long numRequests;
+    private final long numRows;
+    private final long totalQueueNanos;
+    private final long maxQueueNanos;
+    private final long delayNanos;
+  }
+
+  /**
+   * Stop accepting requests and wait for the pending ones to complete.
+   *
+   * <p>The underlying {@link Session} is not closed.
+   */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+    }
+    for (Thread t : threads) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private BatchingSession(Builder b) {
+    callable = b.session.prepare(b.feeds, b.fetches, Collections.<String>emptyList());
+    maxBatchSize = b.maxBatchSize;
+    maxDelayNanos = b.maxDelayNanos;
+    targetLatencyNanos = b.targetLatencyNanos;
+    delayNanos = maxDelayNanos;
+    threads = new Thread[b.numThreads];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  processBatches();
+                }
+              },
+              "tensorflow-batching-" + i);
+      threads[i].setDaemon(true);
+      threads[i].start();
+    }
+  }
+
+  // A request waiting for, or being executed in, a batch.
+  private static final class Request extends FutureTask<List<Tensor>> {
+    Request(Tensor[] inputs, int rows) {
+      super(
+          new Callable<List<Tensor>>() {
+            @Override
+            public List<Tensor> call() {
+              throw new IllegalStateException("requests are completed by their batch");
+            }
+          });
+      this.inputs = inputs;
+      this.rows = rows;
+      this.enqueueNanos = System.nanoTime();
+    }
+
+    void complete(List<Tensor> outputs) {
+      set(outputs);
+    }
+
+    void fail(Throwable t) {
+      setException(t);
+    }
+
+    @Override
+    protected void set(List<Tensor> outputs) {
+      super.set(outputs);
+      if (isCancelled()) {
+        // Nobody will receive the outputs.
+        for (Tensor t : outputs) {
+          t.close();
+        }
+      }
+    }
+
+    // Returns true if the feeds of this and r can be concatenated.
+    boolean batchesWith(Request r) {
+      for (int i = 0; i < inputs.length; ++i) {
+        Tensor a = inputs[i];
+        Tensor b = r.inputs[i];
+        if (a.dataType() != b.dataType()) {
+          return false;
+        }
+        long[] sa = a.shape();
+        long[] sb = b.shape();
+        if (sa.length != sb.length) {
+          return false;
+        }
+        for (int d = 1; d < sa.length; ++d) {
+          if (sa[d] != sb[d]) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    final Tensor[] inputs;
+    final int rows;
+    final long enqueueNanos;
+  }
+
+  private void processBatches() {
+    try {
+      List<Request> batch;
+      while ((batch = nextBatch()) != null) {
+        execute(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Waits for the next batch to be ready and removes it from the queue. Returns null once closed
+  // and no requests are pending.
+  private List<Request> nextBatch() throws InterruptedException {
+    synchronized (lock) {
+      while (true) {
+        if (queue.isEmpty()) {
+          if (closed) {
+            return null;
+          }
+          lock.wait();
+          continue;
+        }
+        long deadline = queue.peek().enqueueNanos + delayNanos;
+        long wait = deadline - System.nanoTime();
+        if (!closed && queuedRows < maxBatchSize && wait > 0) {
+          TimeUnit.NANOSECONDS.timedWait(lock, wait);
+          continue;
+        }
+        List<Request> batch = new ArrayList<Request>();
+        int rows = 0;
+        while (!queue.isEmpty()) {
+          Request r = queue.peek();
+          if (!batch.isEmpty()
+              && (rows + r.rows > maxBatchSize || !batch.get(0).batchesWith(r))) {
+            break;
+          }
+          queue.poll();
+          queuedRows -= r.rows;
+          if (!r.isCancelled()) {
+            batch.add(r);
+            rows += r.rows;
+          }
+        }
+        if (!batch.isEmpty()) {
+          return batch;
+        }
+      }
+    }
+  }
+
+  private void execute(List<Request> batch) {
+    long startNanos = System.nanoTime();
+    int rows = 0;
+    for (Request r : batch) {
+      rows += r.rows;
+    }
+    try {
+      if (batch.size() == 1) {
+        batch.get(0).complete(callable.call(batch.get(0).inputs));
+      } else {
+        List<Tensor> outputs = runBatch(batch, rows);
+        try {
+          split(batch, rows, outputs);
+        } finally {
+          for (Tensor t : outputs) {
+            t.close();
+          }
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      // Errors too fail the requests of the batch rather than the worker thread, which would
+      // otherwise leave them, and all later requests, waiting forever.
+      for (Request r : batch) {
+        r.fail(e);
+      }
+    }
+    record(batch, rows, startNanos, System.nanoTime());
+  }
+
+  private List<Tensor> runBatch(List<Request> batch, int rows) {
+    Tensor[] feeds = new Tensor[callable.numFeeds()];
+    try {
+      for (int i = 0; i < feeds.length; ++i) {
+        Tensor first = batch.get(0).inputs[i];
+        long[] shape = Arrays.copyOf(first.shape(), first.numDimensions());
+        shape[0] = rows;
+        List<ByteBuffer> data = new ArrayList<ByteBuffer>();
+        for (Request r : batch) {
+          data.addAll(Arrays.asList(r.inputs[i].asByteBuffers()));
+        }
+        feeds[i] = Tensor.create(first.dataType(), shape, data.toArray(new ByteBuffer[0]));
+      }
+      return callable.call(feeds);
+    } finally {
+      for (Tensor t : feeds) {
+        if (t != null) {
+          t.close();
+        }
+      }
+    }
+  }
+
+  // Completes each request of the batch with its rows of the outputs.
+  private static void split(List<Request> batch, int rows, List<Tensor> outputs) {
+    for (int j = 0; j < outputs.size(); ++j) {
+      Tensor t = outputs.get(j);
+      if (t.numDimensions() == 0 || t.shape()[0] != rows) {
+        throw new IllegalStateException(
+            String.format(
+                "output %d with shape %s cannot be split into the %d rows of the batch",
+                j, Arrays.toString(t.shape()), rows));
+      }
+    }
+    List<List<Tensor>> results = new ArrayList<List<Tensor>>(batch.size());
+    try {
+      int offset = 0;
+      for (Request r : batch) {
+        List<Tensor> result = new ArrayList<Tensor>(outputs.size());
+        results.add(result);
+        for (Tensor t : outputs) {
+          result.add(t.slice(offset, offset + r.rows));
+        }
+        offset += r.rows;
+      }
+    } catch (RuntimeException e) {
+      for (List<Tensor> result : results) {
+        for (Tensor t : result) {
+          t.close();
+        }
+      }
+      throw e;
+    }
+    for (int i = 0; i < batch.size(); ++i) {
+      batch.get(i).complete(results.get(i));
+    }
+  }
+
+  private void record(List<Request> batch, int rows, long startNanos, long endNanos) {
+    synchronized (lock) {
+      ++numBatches;
+      numRequests += batch.size();
+      numRows += rows;
+      long maxLatencyNanos = 0;
+      for (Request r : batch) {
+        long queueNanos = startNanos - r.enqueueNanos;
+        totalQueueNanos += queueNanos;
+        maxQueueNanos = Math.max(maxQueueNanos, queueNanos);
+        maxLatencyNanos = Math.max(maxLatencyNanos, endNanos - r.enqueueNanos);
+      }
+      if (targetLatencyNanos > 0) {
+        if (maxLatencyNanos > targetLatencyNanos) {
+          delayNanos /= 2;
+        } else if (rows < maxBatchSize) {
+          delayNanos = Math.min(maxDelayNanos, delayNanos + Math.max(1, maxDelayNanos / 16));
+        }
+      }
+    }
+  }
+
+  private final Session.Callable callable;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final long targetLatencyNanos;
+  private final Thread[] threads;
+
+  private final Object lock = new Object();
+  private final ArrayDeque<Request> queue = new ArrayDeque<Request>();
+  private long queuedRows = 0;
+  private boolean closed = false;
+  private long delayNanos;
+
+  private long numBatches = 0;
+  private long numRequests = 0;
+  private long numRows = 0;
+  private long totalQueueNanos = 0;
+  private long maxQueueNanos = 0;
+}
@@ -0,0 +1,573 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+
+/**
+ * Serves repeated requests to a {@link Session} from a cache of previous results.
+ *
+ * <p>Requests are identified by the type, shape and contents of the tensors they feed. The outputs
+ * of a request are kept in native memory, in a least recently used cache bounded by a total size in
+ * bytes and optionally by the age of the entries, and each later request with identical feeds
+ * receives copies of them without executing the graph. Concurrent identical requests share a single
+ * execution. For example:
+ *
+ * <pre>{@code
+ * try (CachingSession cache =
+ *     CachingSession.builder(bundle)
+ *         .feeds("x")
+ *         .fetches("y")
+ *         .maxBytes(256 << 20)
+ *         .expireAfter(10, TimeUnit.MINUTES)
+ *         .build()) {
+ *   try (Tensor y = cache.run(x).get(0)) {
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Only graphs whose outputs are a deterministic function of the feeds, such as inference graphs
+ * without stateful operations, should be cached. Instances are thread-safe. {@link #close()} frees
+ * the cached tensors, but does not close the underlying {@link Session}.
+ */
+public final class CachingSession implements AutoCloseable {
+
+  /** Create a builder of a CachingSession over {@code session}. */
+  public static Builder builder(Session session) {
+    return new Builder(session);
+  }
+
+  /** Create a builder of a CachingSession over the session of {@code bundle}. */
+  public static Builder builder(SavedModelBundle bundle) {
+    return new Builder(bundle.session());
+  }
+
+  /** Configuration of a {@link CachingSession}. */
+  public static final class Builder {
+    /**
+     * Set the names of the outputs fed by each request, in order.
+     *
+     * <p>Names may be of the form <tt>operation_name:output_index</tt>, as with {@link
+     * Session.Runner#feed(String, Tensor)}.
+     */
+    public Builder feeds(String... names) {
+      feeds = Arrays.asList(names);
+      return this;
+    }
+
+    /** Set the names of the outputs fetched by each request, in order. */
+    public Builder fetches(String... names) {
+      fetches = Arrays.asList(names);
+      return this;
+    }
+
+    /**
+     * Set the maximum total size of the cached feeds and outputs, in bytes. Defaults to 64MB.
+     */
+    public Builder maxBytes(long bytes) {
+      if (bytes < 0) {
+        throw new IllegalArgumentException("maxBytes must not be negative, got " + bytes);
+      }
+      maxBytes = bytes;
+      return this;
+    }
+
+    /** Set the time after which cached results are no longer served. By default they never are. */
+    public Builder expireAfter(long duration, TimeUnit unit) {
+      if (duration <= 0) {
+        throw new IllegalArgumentException("expireAfter must be positive, got " + duration);
+      }
+      ttlNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Create the CachingSession.
+     *
+     * @throws IllegalArgumentException if any of the feeds or fetches is not in the {@link
+     *     org.tensorflow.Graph} of the session
+     */
+    public CachingSession build() {
+      return new CachingSession(this);
+    }
+
+    private Builder(Session session) {
+      this.session = session;
+    }
+
+    private final Session session;
+    private List<String> feeds = Collections.emptyList();
+    private List<String> fetches = Collections.emptyList();
+    private long maxBytes = 64L << 20;
+    private long ttlNanos = 0;
+  }
+
+  /**
+   * Execute a request, or serve it from the cache.
+   *
+   * <p>The caller keeps ownership of {@code inputs} and assumes ownership of the returned {@link
+   * Tensor}s, which are never shared with other requests.
+   *
+   * @param inputs the values of the feeds, in the order given to {@link Builder#feeds}
+   * @throws IllegalArgumentException if the number of inputs does not match the feeds
+   * @throws IllegalStateException if this CachingSession has been closed
+   */
+  public List<Tensor> run(Tensor... inputs) {
+    if (inputs.length != callable.numFeeds()) {
+      throw new IllegalArgumentException(
+          String.format("expected %d feeds, got %d", callable.numFeeds(), inputs.length));
+    }
+    Key key = new Key(inputs);
+    Entry hit = null;
+    InFlight flight = null;
+    boolean leader = false;
+    // Entries and executions are looked up by hash under the lock. Their feeds are compared with
+    // the inputs once the lock is released, which costs time proportional to the size of the feeds.
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("run() cannot be called after close()");
+      }
+      Entry e = cache.get(key.hash);
+      if (e != null && e.expiresNanos != 0 && e.expiresNanos - System.nanoTime() <= 0) {
+        evict(e);
+        e = null;
+      }
+      if (e != null) {
+        // Pinned so that the entry cannot be freed while its outputs are copied without the lock.
+        ++hits;
+        ++e.refs;
+        hit = e;
+      } else {
+        flight = inFlight.get(key.hash);
+        if (flight == null) {
+          flight = new InFlight();
+          inFlight.put(key.hash, flight);
+          leader = true;
+          ++misses;
+        } else {
+          ++flight.followers;
+          ++deduplicated;
+        }
+      }
+    }
+    if (hit != null) {
+      if (hit.key.sameFeeds(key)) {
+        return copyAndRelease(hit);
+      }
+      release(hit);
+      return runColliding(inputs, true);
+    }
+    if (leader) {
+      execute(key, flight, inputs);
+    } else {
+      flight.await();
+    }
+    if (flight.error instanceof Error) {
+      throw (Error) flight.error;
+    }
+    if (flight.error != null) {
+      throw (RuntimeException) flight.error;
+    }
+    if (!leader && !flight.entry.key.sameFeeds(key)) {
+      release(flight.entry);
+      return runColliding(inputs, false);
+    }
+    return copyAndRelease(flight.entry);
+  }
+
+  // Executes a request whose feeds differ from those of the entry with the same hash, without
+  // caching its outputs. It is accounted for as a miss instead of a hit or a deduplicated request.
+  private List<Tensor> runColliding(Tensor[] inputs, boolean wasHit) {
+    synchronized (lock) {
+      if (wasHit) {
+        --hits;
+      } else {
+        --deduplicated;
+      }
+      ++misses;
+    }
+    return callable.call(inputs);
+  }
+
+  /** Returns a snapshot of the cache statistics since this CachingSession was created. */
+  public Metrics metrics() {
+    synchronized (lock) {
+      return new Metrics(hits, misses, deduplicated, evictions, cache.size(), bytes);
+    }
+  }
+
+  /** Statistics of a {@link CachingSession}. */
+  public static final class Metrics {
+    /** The number of requests served from the cache. */
+    public long hits() {
+      return hits;
+    }
+
+    /** The number of requests that executed the graph. */
+    public long misses() {
+      return misses;
+    }
+
+    /** The number of requests that shared the execution of a concurrent identical request. */
+    public long deduplicated() {
+      return deduplicated;
+    }
+
+    /** The fraction of requests that did not execute the graph themselves. */
+    public double hitRate() {
+      long requests = hits + misses + deduplicated;
+      return requests == 0 ? 0 : (double) (hits + deduplicated) / requests;
+    }
+
+    /** The number of entries removed from the cache, because of its size or their age. */
+    public long evictions() {
+      return evictions;
+    }
+
+    /** The number of entries in the cache. */
+    public int numEntries() {
+      return numEntries;
+    }
+
+    /** The total size of the cached feeds and outputs, in bytes. */
+    public long numBytes() {
+      return numBytes;
+    }
+
+    private Metrics(
+        long hits, long misses, long deduplicated, long evictions, int numEntries, long numBytes) {
+      this.hits = hits;
+      this.misses = misses;
+      this.deduplicated = deduplicated;
+      this.evictions = evictions;
+      this.numEntries = numEntries;
+      this.numBytes = numBytes;
+    }
+
+    private final long hits;
+    private final long misses;
+    private final long deduplicated;
+    private final long evictions;
+    private final int numEntries;
+    private final long numBytes;
+  }
+
+  /** Free the cached tensors. */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (Iterator<Entry> it = cache.values().iterator(); it.hasNext(); ) {
+        Entry e = it.next();
+        it.remove();
+        e.cached = false;
+        bytes -= e.bytes;
+        if (e.refs == 0) {
+          e.close();
+        }
+      }
+    }
+  }
+
+  private CachingSession(Builder b) {
+    callable = b.session.prepare(b.feeds, b.fetches, Collections.<String>emptyList());
+    maxBytes = b.maxBytes;
+    ttlNanos = b.ttlNanos;
+  }
+
+  // Runs the request, publishes its outputs to the requests waiting on flight and caches them.
+  // Whatever happens, flight is completed so that no request waits on it forever.
+  private void execute(Key key, InFlight flight, Tensor[] inputs) {
+    Entry e = null;
+    try {
+      List<Tensor> outputs = callable.call(inputs);
+      Tensor[] feeds = new Tensor[inputs.length];
+      try {
+        for (int i = 0; i < inputs.length; ++i) {
+          feeds[i] = copy(inputs[i]);
+        }
+      } catch (RuntimeException | Error ex) {
+        closeAll(Arrays.asList(feeds));
+        closeAll(outputs);
+        throw ex;
+      }
+      e = new Entry(new Key(key.hash, feeds), outputs);
+    } catch (RuntimeException | Error ex) {
+      flight.error = ex;
+    } finally {
+      try {
+        synchronized (lock) {
+          inFlight.remove(key.hash);
+          if (e != null) {
+            publish(e, flight);
+          }
+        }
+      } finally {
+        flight.done.countDown();
+      }
+    }
+  }
+
+  // Hands e to the requests of flight and caches it. Must be called with lock held.
+  private void publish(Entry e, InFlight flight) {
+    // One reference for the leader and one for each follower, released once they have copied the
+    // outputs.
+    e.refs = 1 + flight.followers;
+    flight.entry = e;
+    if (!closed && e.bytes <= maxBytes) {
+      if (ttlNanos > 0) {
+        e.expiresNanos = System.nanoTime() + ttlNanos;
+        if (e.expiresNanos == 0) {
+          e.expiresNanos = 1;
+        }
+      }
+      // An entry whose feeds merely have the same hash is replaced.
+      Entry previous = cache.get(e.key.hash);
+      if (previous != null) {
+        evict(previous);
+      }
+      cache.put(e.key.hash, e);
+      e.cached = true;
+      bytes += e.bytes;
+      while (bytes > maxBytes) {
+        evict(cache.values().iterator().next());
+      }
+    }
+  }
+
+  // Returns copies of the outputs of e, and releases a reference to e.
+  private List<Tensor> copyAndRelease(Entry e) {
+    List<Tensor> ret = new ArrayList<Tensor>(e.outputs.size());
+    try {
+      for (Tensor t : e.outputs) {
+        ret.add(copy(t));
+      }
+    } catch (RuntimeException ex) {
+      closeAll(ret);
+      throw ex;
+    } finally {
+      release(e);
+    }
+    return ret;
+  }
+
+  // Releases a reference to e, closing it if it is no longer cached nor referenced.
+  private void release(Entry e) {
+    synchronized (lock) {
+      if (--e.refs == 0 && !e.cached) {
+        e.close();
+      }
+    }
+  }
+
+  // Removes e from the cache, closing it unless a request is still copying its outputs. Must be
+  // called with lock held.
+  private void evict(Entry e) {
+    if (cache.get(e.key.hash) == e) {
+      cache.remove(e.key.hash);
+    }
+    if (e.cached) {
+      e.cached = false;
+      bytes -= e.bytes;
+      ++evictions;
+    }
+    if (e.refs == 0) {
+      e.close();
+    }
+  }
+
+  private static Tensor copy(Tensor t) {
+    return Tensor.create(t.dataType(), t.shape(), t.asByteBuffers());
+  }
+
+  private static void closeAll(List<Tensor> tensors) {
+    for (Tensor t : tensors) {
+      if (t != null) {
+        t.close();
+      }
+    }
+  }
+
+  // The feeds of a request: their types, shapes and contents.
+  private static final class Key {
+    Key(Tensor[] feeds) {
+      this(hash(feeds), feeds);
+    }
+
+    Key(long hash, Tensor[] feeds) {
+      this.hash = hash;
+      this.feeds = feeds;
+    }
+
+    // Returns true if the feeds of this key and of k have the same types, shapes and contents.
+    boolean sameFeeds(Key k) {
+      if (hash != k.hash || feeds.length != k.feeds.length) {
+        return false;
+      }
+      for (int i = 0; i < feeds.length; ++i) {
+        Tensor a = feeds[i];
+        Tensor b = k.feeds[i];
+        if (a.dataType() != b.dataType()
+            || !Arrays.equals(a.shape(), b.shape())
+            || !Arrays.equals(a.asByteBuffers(), b.asByteBuffers())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    long bytes() {
+      long n = 0;
+      for (Tensor t : feeds) {
+        n += t.numBytes();
+      }
+      return n;
+    }
+
+    // A 64-bit hash of the feeds, processing 8 bytes at a time with the mixing steps of
+    // MurmurHash3.
+    private static long hash(Tensor[] feeds) {
+      long h = feeds.length;
+      for (Tensor t : feeds) {
+        h = mix(h, t.dataType().ordinal());
+        long[] shape = t.shape();
+        h = mix(h, shape.length);
+        for (long d : shape) {
+          h = mix(h, d);
+        }
+        for (ByteBuffer chunk : t.asByteBuffers()) {
+          ByteBuffer b = chunk.order(ByteOrder.LITTLE_ENDIAN);
+          while (b.remaining() >= 8) {
+            h = mix(h, b.getLong());
+          }
+          long tail = 0;
+          for (int shift = 0; b.hasRemaining(); shift += 8) {
+            tail |= (b.get() & 0xffL) << shift;
+          }
+          h = mix(h, tail);
+        }
+      }
+      return fmix(h);
+    }
+
+    private static long mix(long h, long k) {
+      k *= 0x87c37b91114253d5L;
+      k = Long.rotateLeft(k, 31);
+      k *= 0x4cf5ad432745937fL;
+      h ^= k;
+      h = Long.rotateLeft(h, 27);
+      return h * 5 + 0x52dce729;
+    }
+
+    private static long fmix(long h) {
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+      return h;
+    }
+
+    final long hash;
+    final Tensor[] feeds;
+  }
+
+  // Cached outputs, owned by the cache together with a copy of the feeds.
+  private static final class Entry {
+    Entry(Key key, List<Tensor> outputs) {
+      this.key = key;
+      this.outputs = outputs;
+      long n = key.bytes();
+      for (Tensor t : outputs) {
+        n += t.numBytes();
+      }
+      this.bytes = n;
+    }
+
+    void close() {
+      closeAll(Arrays.asList(key.feeds));
+      closeAll(outputs);
+    }
+
+    final Key key;
+    final List<Tensor> outputs;
+    final long bytes;
+    // The following are guarded by CachingSession.lock.
+    int refs = 0;
+    boolean cached = false;
+    long expiresNanos = 0;
+  }
+
+  // An execution shared by identical concurrent requests.
+  private static final class InFlight {
+    void await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          // The reference taken for this request must be released by copying the outputs.
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    final CountDownLatch done = new CountDownLatch(1);
+    int followers = 0; // guarded by CachingSession.lock
+    Entry entry = null;
+    // A RuntimeException or Error thrown by the execution.
+    Throwable error = null;
+  }
+
+  private final Session.Callable callable;
+  private final long maxBytes;
+  private final long ttlNanos;
+
+  private final Object lock = new Object();
+  // In access order, so that the first entry is the least recently used.
+  // Keyed by the hash of the feeds of the entries, which are compared without holding the lock.
+  private final LinkedHashMap<Long, Entry> cache = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+  private final Map<Long, InFlight> inFlight = new HashMap<Long, InFlight>();
+  private long bytes = 0;
+  private boolean closed = false;
+
+  private long hits = 0;
+  private long misses = 0;
+  private long deduplicated = 0;
+  private long evictions = 0;
+}
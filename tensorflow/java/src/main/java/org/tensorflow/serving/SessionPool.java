@@ -0,0 +1,272 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.tensorflow.Graph;
+import org.tensorflow.Operation;
+import org.tensorflow.Output;
+import org.tensorflow.Session;
+import org.tensorflow.SessionOptions;
+import org.tensorflow.Tensor;
+
+/**
+ * A fixed set of {@link Session}s over the same {@link Graph}, with calls routed to the least
+ * loaded one.
+ *
+ * <p>A single Session executes concurrent runs with shared thread pools. For small models, several
+ * narrower sessions, each with its own few threads, often sustain more concurrent callers than one
+ * wide session. For example, to use 8 sessions of 2 threads each:
+ *
+ * <pre>{@code
+ * try (SessionPool pool = new SessionPool(graph, 8, 2, 1)) {
+ *   SessionPool.Callable c =
+ *       pool.prepare(Arrays.asList("x"), Arrays.asList("y"), Collections.<String>emptyList());
+ *   // From many threads:
+ *   try (Tensor y = c.call(x).get(0)) {
+ *     ...
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Each session starts with its own, uninitialized, variables. The graph should therefore be
+ * free of variables, for example the graph of a {@link org.tensorflow.SavedModelBundle} frozen by
+ * {@link org.tensorflow.tools.Freezer#freeze}, as the sessions would otherwise fail every run that
+ * reads a variable. In particular, the graph of a SavedModelBundle cannot be used as is, since its
+ * variables are restored only in the bundle's own session.
+ *
+ * <p>The load of a session is the number of calls currently using it. Instances are thread-safe.
+ * {@link #close()} closes all the sessions of the pool, but not the {@link Graph}.
+ */
+public final class SessionPool implements AutoCloseable {
+
+  /**
+   * Create a pool of {@code numSessions} sessions with the default configuration.
+   *
+   * @throws IllegalArgumentException if {@code numSessions} is not positive
+   */
+  public SessionPool(Graph g, int numSessions) {
+    this(g, Collections.<byte[]>nCopies(checkPositive("numSessions", numSessions), null));
+  }
+
+  /**
+   * Create a pool of {@code numSessions} sessions, each with its own thread pools of the given
+   * sizes.
+   *
+   * @param g the graph executed by the sessions
+   * @param numSessions the number of sessions in the pool
+   * @param intraOpThreads the number of threads each session uses to parallelize a single
+   *     operation
+   * @param interOpThreads the number of threads each session uses to execute independent
+   *     operations concurrently
+   * @throws IllegalArgumentException if any of the counts is not positive
+   */
+  public SessionPool(Graph g, int numSessions, int intraOpThreads, int interOpThreads) {
+    this(
+        g,
+        Collections.nCopies(
+            checkPositive("numSessions", numSessions),
+            SessionOptions.builder()
+                .intraOpParallelismThreads(checkPositive("intraOpThreads", intraOpThreads))
+                .interOpParallelismThreads(checkPositive("interOpThreads", interOpThreads))
+                .usePerSessionThreads(true)
+                .build()
+                .toByteArray()));
+  }
+
+  /**
+   * Create a pool with one session per element of {@code configs}.
+   *
+   * @param g the graph executed by the sessions
+   * @param configs for each session, a serialized <a
+   *     href="https://www.tensorflow.org/code/tensorflow/core/protobuf/config.proto">ConfigProto</a>
+   *     protocol buffer, or null for the default configuration
+   * @throws IllegalArgumentException if {@code configs} is empty or contains an invalid
+   *     configuration
+   */
+  public SessionPool(Graph g, List<byte[]> configs) {
+    if (configs.isEmpty()) {
+      throw new IllegalArgumentException("a SessionPool needs at least one session");
+    }
+    sessions = new Session[configs.size()];
+    loads = new AtomicInteger[configs.size()];
+    try {
+      for (int i = 0; i < sessions.length; ++i) {
+        sessions[i] = new Session(g, configs.get(i));
+        loads[i] = new AtomicInteger();
+      }
+    } catch (RuntimeException e) {
+      closeSessions();
+      throw e;
+    }
+  }
+
+  /** Returns the number of sessions in the pool. */
+  public int size() {
+    return sessions.length;
+  }
+
+  /**
+   * Reserve the least loaded session of the pool.
+   *
+   * <p>The session counts as loaded until the returned lease is closed:
+   *
+   * <pre>{@code
+   * try (SessionPool.Lease lease = pool.acquire()) {
+   *   List<Tensor> outputs = lease.session().runner().feed("x", x).fetch("y").run();
+   * }
+   * }</pre>
+   */
+  public Lease acquire() {
+    return new Lease(leastLoaded());
+  }
+
+  /** A session of a {@link SessionPool} reserved by {@link SessionPool#acquire()}. */
+  public final class Lease implements AutoCloseable {
+    /** Returns the reserved session, which must not be used after the lease is closed. */
+    public Session session() {
+      return sessions[shard];
+    }
+
+    /** Release the reservation. */
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        loads[shard].decrementAndGet();
+      }
+    }
+
+    private Lease(int shard) {
+      this.shard = shard;
+    }
+
+    private final int shard;
+    private boolean released = false;
+  }
+
+  /**
+   * Prepare a {@link Callable} on each session of the pool, see {@link Session#prepare(List, List,
+   * List)}.
+   */
+  public Callable prepare(List<Output> feeds, List<Output> fetches, List<Operation> targets) {
+    Session.Callable[] callables = new Session.Callable[sessions.length];
+    for (int i = 0; i < sessions.length; ++i) {
+      callables[i] = sessions[i].prepare(feeds, fetches, targets);
+    }
+    return new Callable(callables);
+  }
+
+  /**
+   * Like {@link #prepare(List, List, List)}, with feeds, fetches and targets identified by name.
+   */
+  public Callable prepare(
+      Collection<String> feeds, Collection<String> fetches, Collection<String> targets) {
+    Session.Callable[] callables = new Session.Callable[sessions.length];
+    for (int i = 0; i < sessions.length; ++i) {
+      callables[i] = sessions[i].prepare(feeds, fetches, targets);
+    }
+    return new Callable(callables);
+  }
+
+  /** A graph fragment prepared on all sessions of a {@link SessionPool}. */
+  public final class Callable {
+    /**
+     * Execute the prepared graph fragment on the least loaded session.
+     *
+     * @see Session.Callable#call(Tensor...)
+     */
+    public List<Tensor> call(Tensor... feeds) {
+      int shard = leastLoaded();
+      try {
+        return callables[shard].call(feeds);
+      } finally {
+        loads[shard].decrementAndGet();
+      }
+    }
+
+    /**
+     * Execute the prepared graph fragment on the least loaded session, storing the fetched values
+     * in {@code outputs}.
+     *
+     * @see Session.Callable#call(Tensor[], Tensor[])
+     */
+    public void call(Tensor[] feeds, Tensor[] outputs) {
+      int shard = leastLoaded();
+      try {
+        callables[shard].call(feeds, outputs);
+      } finally {
+        loads[shard].decrementAndGet();
+      }
+    }
+
+    private Callable(Session.Callable[] callables) {
+      this.callables = callables;
+    }
+
+    private final Session.Callable[] callables;
+  }
+
+  /** Close all the sessions of the pool, waiting for their active runs to complete. */
+  @Override
+  public void close() {
+    closeSessions();
+  }
+
+  // Returns the index of a session with the fewest active calls after incrementing its load. The
+  // scan starts at a rotating position so that ties are spread across the pool.
+  private int leastLoaded() {
+    int n = sessions.length;
+    int start = (next.getAndIncrement() & Integer.MAX_VALUE) % n;
+    while (true) {
+      int best = start;
+      int bestLoad = loads[start].get();
+      for (int i = 1; i < n && bestLoad > 0; ++i) {
+        int shard = (start + i) % n;
+        int load = loads[shard].get();
+        if (load < bestLoad) {
+          best = shard;
+          bestLoad = load;
+        }
+      }
+      if (loads[best].compareAndSet(bestLoad, bestLoad + 1)) {
+        return best;
+      }
+    }
+  }
+
+  private void closeSessions() {
+    for (Session s : sessions) {
+      if (s != null) {
+        s.close();
+      }
+    }
+  }
+
+  private static int checkPositive(String name, int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(name + " must be positive, got " + value);
+    }
+    return value;
+  }
+
+  private final Session[] sessions;
+  private final AtomicInteger[] loads;
+  private final AtomicInteger next = new AtomicInteger();
+}
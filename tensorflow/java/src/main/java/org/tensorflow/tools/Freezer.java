@@ -0,0 +1,145 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.tensorflow.Graph;
+import org.tensorflow.ImportOptions;
+import org.tensorflow.Operation;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+
+/**
+ * Converts the variables of a model into constants, for inference.
+ *
+ * <p>A {@link SavedModelBundle} restores its variables into a live {@link Session}, and its graph
+ * keeps the variables along with the operations that initialize, restore and save them. A frozen
+ * graph only has the operations needed to compute the requested outputs, with the current values
+ * of the variables they read stored in {@code Const} operations. It can be imported and run
+ * without restoring anything, and needs less memory:
+ *
+ * <pre>{@code
+ * byte[] frozen;
+ * try (SavedModelBundle bundle = SavedModelBundle.load(exportDir, "serve")) {
+ *   frozen = Freezer.freeze(bundle, Arrays.asList("y"));
+ * }
+ * try (Graph g = new Graph();
+ *     Session s = new Session(g)) {
+ *   g.importGraphDef(frozen);
+ *   ...
+ * }
+ * }</pre>
+ */
+public final class Freezer {
+
+  /**
+   * Returns a serialized <a
+   * href="https://www.tensorflow.org/code/tensorflow/core/framework/graph.proto">GraphDef</a> that
+   * computes {@code outputs} with the variables of {@code bundle} replaced by their current values.
+   *
+   * @param bundle the model to freeze
+   * @param outputs the names of the operations or outputs, of the form
+   *     <tt>operation_name:output_index</tt>, to compute in the frozen graph
+   * @throws IllegalArgumentException if an output is not in the graph of the model, or if the
+   *     outputs depend on resource variables, which cannot be frozen
+   */
+  public static byte[] freeze(SavedModelBundle bundle, Collection<String> outputs) {
+    byte[] graphDef = bundle.graph().toGraphDef();
+    List<String> variables = reachableVariables(graphDef, outputs);
+
+    // The variables remain in the frozen graph as constants of the same name, so they are not
+    // imported as fetches.
+    Set<String> variableNames = new HashSet<String>(variables);
+    List<String> fetches = new ArrayList<String>();
+    for (String output : outputs) {
+      if (!variableNames.contains(nodeName(output))) {
+        fetches.add(output);
+      }
+    }
+
+    List<Tensor> values = Collections.emptyList();
+    if (!variables.isEmpty()) {
+      Session.Runner runner = bundle.session().runner();
+      for (String v : variables) {
+        runner.fetch(v);
+      }
+      values = runner.run();
+    }
+    try (Graph frozen = new Graph()) {
+      ImportOptions.Builder options =
+          ImportOptions.builder().pruneTo(fetches, Collections.<String>emptyList());
+      for (int i = 0; i < variables.size(); ++i) {
+        Tensor value = values.get(i);
+        Operation constant =
+            frozen
+                .opBuilder("Const", variables.get(i))
+                .setAttr("dtype", value.dataType())
+                .setAttr("value", value)
+                .build();
+        options.mapInput(variables.get(i), constant.output(0));
+      }
+      frozen.importGraphDef(graphDef, "", options.build());
+      return frozen.toGraphDef();
+    } finally {
+      for (Tensor t : values) {
+        t.close();
+      }
+    }
+  }
+
+  // Returns the names of the variables that outputs depend on, found by importing the nodes they
+  // depend on into a scratch graph.
+  private static List<String> reachableVariables(byte[] graphDef, Collection<String> outputs) {
+    List<String> ret = new ArrayList<String>();
+    try (Graph pruned = new Graph()) {
+      pruned.importGraphDef(
+          graphDef,
+          "",
+          ImportOptions.builder().pruneTo(outputs, Collections.<String>emptyList()).build());
+      Iterator<Operation> it = pruned.operations();
+      while (it.hasNext()) {
+        Operation op = it.next();
+        if (VARIABLE_OPS.contains(op.type())) {
+          ret.add(op.name());
+        } else if (RESOURCE_VARIABLE_OPS.contains(op.type())) {
+          throw new IllegalArgumentException(
+              "cannot freeze resource variable '" + op.name() + "'");
+        }
+      }
+    }
+    return ret;
+  }
+
+  private static String nodeName(String output) {
+    int colon = output.lastIndexOf(':');
+    return colon < 0 ? output : output.substring(0, colon);
+  }
+
+  private static final Set<String> VARIABLE_OPS =
+      new HashSet<String>(Arrays.asList("Variable", "VariableV2"));
+  private static final Set<String> RESOURCE_VARIABLE_OPS =
+      new HashSet<String>(Arrays.asList("VarHandleOp"));
+
+  private Freezer() {}
+}
@@ -0,0 +1,249 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+package org.tensorflow.types;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Conversions between 32-bit floats and the reduced precision and quantized TensorFlow types.
+ *
+ * <p>The elements of {@link org.tensorflow.DataType#HALF} and {@link
+ * org.tensorflow.DataType#BFLOAT16} tensors are represented by the bit patterns of their values, in
+ * a {@code short}. The elements of {@link org.tensorflow.DataType#INT8} and {@link
+ * org.tensorflow.DataType#QUINT8} tensors are represented by a {@code byte}, holding the quantized
+ * value {@code q = round(f / scale) + zeroPoint} of a float {@code f}, where {@code q} is
+ * interpreted as signed for INT8 and unsigned for QUINT8.
+ *
+ * <p>The bulk conversion methods convert the remaining elements of the source buffer into the
+ * destination buffer, advancing the position of both. For example, to create a HALF tensor:
+ *
+ * <pre>{@code
+ * ByteBuffer buf = ByteBuffer.allocateDirect(2 * data.length).order(ByteOrder.nativeOrder());
+ * Conversions.floatToHalf(FloatBuffer.wrap(data), buf.asShortBuffer());
+ * Tensor t = Tensor.create(DataType.HALF, shape, buf);
+ * }</pre>
+ */
+public final class Conversions {
+
+  private Conversions() {} // not instantiable
+
+  /** Returns the half precision value nearest to {@code f}. */
+  public static short floatToHalf(float f) {
+    int bits = Float.floatToRawIntBits(f);
+    int sign = (bits >>> 16) & 0x8000;
+    int exp = (bits >>> 23) & 0xff;
+    int mant = bits & 0x7fffff;
+    if (exp == 0xff) {
+      // Infinity, or NaN (keeping it quiet).
+      return (short) (sign | 0x7c00 | (mant != 0 ? 0x200 | (mant >>> 13) : 0));
+    }
+    int e = exp - 127 + 15;
+    if (e >= 0x1f) {
+      return (short) (sign | 0x7c00);
+    }
+    if (e <= 0) {
+      if (e < -10) {
+        return (short) sign;
+      }
+      // Subnormal half, including the implicit leading bit of the float.
+      mant |= 0x800000;
+      int shift = 14 - e;
+      return (short) (sign | roundShift(mant, shift));
+    }
+    // Rounding may carry into the exponent, which correctly yields the next power of two (or
+    // infinity).
+    return (short) (sign | roundShift((e << 23) | mant, 13));
+  }
+
+  /** Returns the float value of the half precision value {@code h}. */
+  public static float halfToFloat(short h) {
+    int sign = (h & 0x8000) << 16;
+    int exp = (h >>> 10) & 0x1f;
+    int mant = h & 0x3ff;
+    if (exp == 0) {
+      float f = mant * 0x1p-24f;
+      return sign != 0 ? -f : f;
+    }
+    if (exp == 0x1f) {
+      return Float.intBitsToFloat(sign | 0x7f800000 | (mant << 13));
+    }
+    return Float.intBitsToFloat(sign | ((exp + 127 - 15) << 23) | (mant << 13));
+  }
+
+  /** Returns the bfloat16 value nearest to {@code f}. */
+  public static short floatToBfloat16(float f) {
+    int bits = Float.floatToRawIntBits(f);
+    if (Float.isNaN(f)) {
+      return (short) ((bits >>> 16) | 0x40);
+    }
+    return (short) roundShift(bits, 16);
+  }
+
+  /** Returns the float value of the bfloat16 value {@code b}. */
+  public static float bfloat16ToFloat(short b) {
+    return Float.intBitsToFloat((b & 0xffff) << 16);
+  }
+
+  /**
+   * Returns the signed 8-bit quantization of {@code f}, saturated to {@code [-128, 127]}.
+   *
+   * @param scale the difference between the floats represented by consecutive quantized values
+   * @param zeroPoint the quantized value representing 0
+   */
+  public static byte floatToInt8(float f, float scale, int zeroPoint) {
+    return (byte) clamp(Math.round(f / scale) + zeroPoint, -128, 127);
+  }
+
+  /** Returns the float represented by the signed 8-bit quantized value {@code q}. */
+  public static float int8ToFloat(byte q, float scale, int zeroPoint) {
+    return (q - zeroPoint) * scale;
+  }
+
+  /**
+   * Returns the unsigned 8-bit quantization of {@code f}, saturated to {@code [0, 255]}.
+   *
+   * @param scale the difference between the floats represented by consecutive quantized values
+   * @param zeroPoint the quantized value representing 0
+   */
+  public static byte floatToUInt8(float f, float scale, int zeroPoint) {
+    return (byte) clamp(Math.round(f / scale) + zeroPoint, 0, 255);
+  }
+
+  /** Returns the float represented by the unsigned 8-bit quantized value {@code q}. */
+  public static float uint8ToFloat(byte q, float scale, int zeroPoint) {
+    return ((q & 0xff) - zeroPoint) * scale;
+  }
+
+  /** Converts floats to half precision values. */
+  public static void floatToHalf(FloatBuffer src, ShortBuffer dst) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, floatToHalf(src.get(s + i)));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Converts half precision values to floats. */
+  public static void halfToFloat(ShortBuffer src, FloatBuffer dst) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, halfToFloat(src.get(s + i)));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Converts floats to bfloat16 values. */
+  public static void floatToBfloat16(FloatBuffer src, ShortBuffer dst) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, floatToBfloat16(src.get(s + i)));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Converts bfloat16 values to floats. */
+  public static void bfloat16ToFloat(ShortBuffer src, FloatBuffer dst) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, bfloat16ToFloat(src.get(s + i)));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Quantizes floats to signed 8-bit values, see {@link #floatToInt8(float, float, int)}. */
+  public static void floatToInt8(FloatBuffer src, ByteBuffer dst, float scale, int zeroPoint) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, floatToInt8(src.get(s + i), scale, zeroPoint));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Dequantizes signed 8-bit values to floats. */
+  public static void int8ToFloat(ByteBuffer src, FloatBuffer dst, float scale, int zeroPoint) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, int8ToFloat(src.get(s + i), scale, zeroPoint));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Quantizes floats to unsigned 8-bit values, see {@link #floatToUInt8(float, float, int)}. */
+  public static void floatToUInt8(FloatBuffer src, ByteBuffer dst, float scale, int zeroPoint) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, floatToUInt8(src.get(s + i), scale, zeroPoint));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  /** Dequantizes unsigned 8-bit values to floats. */
+  public static void uint8ToFloat(ByteBuffer src, FloatBuffer dst, float scale, int zeroPoint) {
+    int n = checkRemaining(src.remaining(), dst.remaining());
+    int s = src.position();
+    int d = dst.position();
+    for (int i = 0; i < n; ++i) {
+      dst.put(d + i, uint8ToFloat(src.get(s + i), scale, zeroPoint));
+    }
+    src.position(s + n);
+    dst.position(d + n);
+  }
+
+  // Returns bits >>> shift, rounded to the nearest integer (ties to even).
+  private static int roundShift(int bits, int shift) {
+    int result = bits >>> shift;
+    int rem = bits & ((1 << shift) - 1);
+    int half = 1 << (shift - 1);
+    if (rem > half || (rem == half && (result & 1) != 0)) {
+      ++result;
+    }
+    return result;
+  }
+
+  private static int clamp(int v, int min, int max) {
+    return v < min ? min : (v > max ? max : v);
+  }
+
+  private static int checkRemaining(int src, int dst) {
+    if (dst < src) {
+      throw new BufferOverflowException();
+    }
+    return src;
+  }
+}
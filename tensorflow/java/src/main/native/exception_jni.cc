@@ -61,6 +61,10 @@ const char* exceptionClassName(TF_Code code) {
       return kIndexOutOfBoundsException;
     case TF_UNIMPLEMENTED:
       return kUnsupportedOperationException;
+    case TF_DEADLINE_EXCEEDED:
+      return "org/tensorflow/DeadlineExceededException";
+    case TF_CANCELLED:
+      return "org/tensorflow/CancelledException";
     default:
       return "org/tensorflow/TensorFlowException";
   }
@@ -16,6 +16,7 @@ limitations under the License.
 #include "tensorflow/java/src/main/native/graph_jni.h"
 
 #include <limits>
+#include <vector>
 #include "tensorflow/c/c_api.h"
 #include "tensorflow/java/src/main/native/exception_jni.h"
 
@@ -42,21 +43,28 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Graph_delete(JNIEnv*, jclass,
   TF_DeleteGraph(reinterpret_cast<TF_Graph*>(handle));
 }
 
-JNIEXPORT jlong JNICALL Java_org_tensorflow_Graph_operation(JNIEnv* env,
-                                                            jclass clazz,
-                                                            jlong handle,
-                                                            jstring name) {
+JNIEXPORT jlongArray JNICALL Java_org_tensorflow_Graph_nextOperation(
+    JNIEnv* env, jclass clazz, jlong handle, jint position) {
   TF_Graph* g = requireHandle(env, handle);
-  if (g == nullptr) return 0;
-  const char* cname = env->GetStringUTFChars(name, nullptr);
-  TF_Operation* op = TF_GraphOperationByName(g, cname);
-  env->ReleaseStringUTFChars(name, cname);
-  return reinterpret_cast<jlong>(op);
+  if (g == nullptr) return nullptr;
+
+  size_t pos = static_cast<size_t>(position);
+  TF_Operation* operation = TF_GraphNextOperation(g, &pos);
+  if (operation == nullptr) return nullptr;
+
+  jlong handle_and_position[2];
+  handle_and_position[0] = reinterpret_cast<jlong>(operation);
+  handle_and_position[1] = static_cast<jlong>(pos);
+
+  jlongArray ret = env->NewLongArray(2);
+  env->SetLongArrayRegion(ret, 0, 2, handle_and_position);
+  return ret;
 }
 
 JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDef(
     JNIEnv* env, jclass clazz, jlong handle, jbyteArray graph_def,
-    jstring prefix) {
+    jstring prefix, jobjectArray src_names, jintArray src_indices,
+    jlongArray dst_op_handles, jintArray dst_indices) {
   TF_Graph* g = requireHandle(env, handle);
   if (g == nullptr) return;
 
@@ -67,6 +75,26 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDef(
   TF_ImportGraphDefOptionsSetPrefix(opts, cprefix);
   env->ReleaseStringUTFChars(prefix, cprefix);
 
+  // The options refer to the source names rather than copying them, so they
+  // are released only after the import.
+  const jsize num_mappings = env->GetArrayLength(src_names);
+  std::vector<jstring> names(num_mappings);
+  std::vector<const char*> cnames(num_mappings);
+  jint* src_index = env->GetIntArrayElements(src_indices, nullptr);
+  jlong* dst_op = env->GetLongArrayElements(dst_op_handles, nullptr);
+  jint* dst_index = env->GetIntArrayElements(dst_indices, nullptr);
+  for (jsize i = 0; i < num_mappings; ++i) {
+    names[i] = static_cast<jstring>(env->GetObjectArrayElement(src_names, i));
+    cnames[i] = env->GetStringUTFChars(names[i], nullptr);
+    TF_Operation* dst = reinterpret_cast<TF_Operation*>(dst_op[i]);
+    TF_ImportGraphDefOptionsAddInputMapping(opts, cnames[i], src_index[i],
+                                            TF_Output{dst, dst_index[i]});
+    TF_ImportGraphDefOptionsRemapControlDependency(opts, cnames[i], dst);
+  }
+  env->ReleaseIntArrayElements(src_indices, src_index, JNI_ABORT);
+  env->ReleaseLongArrayElements(dst_op_handles, dst_op, JNI_ABORT);
+  env->ReleaseIntArrayElements(dst_indices, dst_index, JNI_ABORT);
+
   static_assert(sizeof(jbyte) == 1, "unexpected size of the jbyte type");
   jbyte* bytes = env->GetByteArrayElements(graph_def, &is_copy);
   TF_Buffer* buf =
@@ -82,6 +110,43 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDef(
   env->ReleaseByteArrayElements(graph_def, bytes, JNI_ABORT);
 
   TF_DeleteImportGraphDefOptions(opts);
+  for (jsize i = 0; i < num_mappings; ++i) {
+    env->ReleaseStringUTFChars(names[i], cnames[i]);
+    env->DeleteLocalRef(names[i]);
+  }
+}
+
+JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDefFromBuffer(
+    JNIEnv* env, jclass clazz, jlong handle, jobject graph_def, jint offset,
+    jint length, jstring prefix) {
+  TF_Graph* g = requireHandle(env, handle);
+  if (g == nullptr) return;
+
+  char* data = static_cast<char*>(env->GetDirectBufferAddress(graph_def));
+  if (data == nullptr) {
+    throwException(env, kIllegalArgumentException,
+                   "cannot import a GraphDef from a buffer that is not direct");
+    return;
+  }
+
+  TF_ImportGraphDefOptions* opts = TF_NewImportGraphDefOptions();
+  const char* cprefix = env->GetStringUTFChars(prefix, nullptr);
+  TF_ImportGraphDefOptionsSetPrefix(opts, cprefix);
+  env->ReleaseStringUTFChars(prefix, cprefix);
+
+  // The buffer refers to the contents of graph_def, which are owned by Java
+  // and must not be freed by TF_DeleteBuffer.
+  TF_Buffer* buf = TF_NewBuffer();
+  buf->data = data + offset;
+  buf->length = static_cast<size_t>(length);
+  TF_Status* status = TF_NewStatus();
+
+  TF_GraphImportGraphDef(g, buf, opts, status);
+  throwExceptionIfNotOK(env, status);
+
+  TF_DeleteStatus(status);
+  TF_DeleteBuffer(buf);
+  TF_DeleteImportGraphDefOptions(opts);
 }
 
 JNIEXPORT jbyteArray JNICALL
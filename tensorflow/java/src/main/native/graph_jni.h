@@ -39,21 +39,30 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Graph_delete(JNIEnv *, jclass,
 
 /*
  * Class:     org_tensorflow_Graph
- * Method:    operation
- * Signature: (JLjava/lang/String;)J
+ * Method:    nextOperation
+ * Signature: (JI)[J
  */
-JNIEXPORT jlong JNICALL Java_org_tensorflow_Graph_operation(JNIEnv *, jclass,
-                                                            jlong, jstring);
+JNIEXPORT jlongArray JNICALL Java_org_tensorflow_Graph_nextOperation(JNIEnv *,
+                                                                     jclass,
+                                                                     jlong,
+                                                                     jint);
 
 /*
  * Class:     org_tensorflow_Graph
  * Method:    importGraphDef
- * Signature: (J[BLjava/lang/String;)V
+ * Signature: (J[BLjava/lang/String;[Ljava/lang/String;[I[J[I)V
  */
-JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDef(JNIEnv *,
-                                                                jclass, jlong,
-                                                                jbyteArray,
-                                                                jstring);
+JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDef(
+    JNIEnv *, jclass, jlong, jbyteArray, jstring, jobjectArray, jintArray,
+    jlongArray, jintArray);
+
+/*
+ * Class:     org_tensorflow_Graph
+ * Method:    importGraphDefFromBuffer
+ * Signature: (JLjava/nio/ByteBuffer;IILjava/lang/String;)V
+ */
+JNIEXPORT void JNICALL Java_org_tensorflow_Graph_importGraphDefFromBuffer(
+    JNIEnv *, jclass, jlong, jobject, jint, jint, jstring);
 
 /*
  * Class:     org_tensorflow_Graph
@@ -20,8 +20,10 @@ limitations under the License.
 #include <string.h>
 #include <algorithm>
 #include <memory>
+#include <vector>
 
 #include "tensorflow/c/c_api.h"
+#include "tensorflow/c/c_api_internal.h"
 #include "tensorflow/java/src/main/native/exception_jni.h"
 
 namespace {
@@ -44,6 +46,10 @@ size_t elemByteSize(TF_DataType dtype) {
       static_assert(sizeof(jboolean) == 1,
                     "Java boolean not compatible with TF_BOOL");
       return 1;
+    case TF_INT16:
+      static_assert(sizeof(jshort) == 2,
+                    "Java short not compatible with TF_INT16");
+      return 2;
     case TF_FLOAT:
     case TF_INT32:
       static_assert(sizeof(jfloat) == 4,
@@ -62,6 +68,104 @@ size_t elemByteSize(TF_DataType dtype) {
   }
 }
 
+// Copy the dimensions in the Java array shape to a newly allocated array of
+// int64_t, as expected by the TensorFlow C API.
+int64_t* copyDims(JNIEnv* env, jlongArray shape) {
+  int num_dims = static_cast<int>(env->GetArrayLength(shape));
+  jlong* dims = nullptr;
+  if (num_dims > 0) {
+    jboolean is_copy;
+    dims = env->GetLongArrayElements(shape, &is_copy);
+  }
+  static_assert(sizeof(jlong) == sizeof(int64_t),
+                "Java long is not compatible with the TensorFlow C API");
+  // On some platforms "jlong" is a "long" while "int64_t" is a "long long".
+  //
+  // Thus, static_cast<int64_t*>(dims) will trigger a compiler error:
+  // static_cast from 'jlong *' (aka 'long *') to 'int64_t *' (aka 'long long
+  // *') is not allowed
+  //
+  // Since this array is typically very small, use the guaranteed safe scheme of
+  // creating a copy.
+  int64_t* dims_copy = new int64_t[num_dims];
+  for (int i = 0; i < num_dims; ++i) {
+    dims_copy[i] = static_cast<int64_t>(dims[i]);
+  }
+  if (dims != nullptr) {
+    env->ReleaseLongArrayElements(shape, dims, JNI_ABORT);
+  }
+  return dims_copy;
+}
+
+// State passed to the deallocator of a TF_Tensor whose memory is owned by a
+// direct java.nio.Buffer.
+struct WrappedBuffer {
+  JavaVM* vm;
+  jobject buffer;  // global reference, keeps the memory of the buffer alive.
+};
+
+// Deallocator for TF_Tensors created by Tensor.allocateWrapped.
+//
+// The TensorFlow runtime may release the memory of a tensor on any thread (for
+// example, after a Session.run() that retained a reference to it has
+// completed), so the calling thread is attached to the JVM if necessary.
+void releaseWrappedBuffer(void* data, size_t len, void* arg) {
+  WrappedBuffer* wrapped = static_cast<WrappedBuffer*>(arg);
+  JNIEnv* env = nullptr;
+  bool attached = false;
+  if (wrapped->vm->GetEnv(reinterpret_cast<void**>(&env), JNI_VERSION_1_6) ==
+      JNI_EDETACHED) {
+#ifdef __ANDROID__
+    jint status = wrapped->vm->AttachCurrentThread(&env, nullptr);
+#else
+    jint status =
+        wrapped->vm->AttachCurrentThread(reinterpret_cast<void**>(&env), nullptr);
+#endif
+    // If the thread cannot be attached, the buffer is leaked rather than
+    // crashing the process.
+    attached = (status == JNI_OK);
+    if (!attached) env = nullptr;
+  }
+  if (env != nullptr) {
+    env->DeleteGlobalRef(wrapped->buffer);
+  }
+  if (attached) {
+    wrapped->vm->DetachCurrentThread();
+  }
+  delete wrapped;
+}
+
+// A TensorBuffer referring to a range of the memory of another TensorBuffer,
+// like the SubBuffer used by tensorflow::Tensor::Slice. It holds a reference
+// to the root buffer, so the memory outlives the TF_Tensor it was sliced from
+// and is released when the last slice referring to it is deleted.
+class SliceBuffer : public tensorflow::TensorBuffer {
+ public:
+  SliceBuffer(tensorflow::TensorBuffer* buf, size_t offset, size_t len)
+      : root_(buf->root_buffer()),
+        data_(static_cast<char*>(buf->data()) + offset),
+        len_(len) {
+    root_->Ref();
+  }
+
+  void* data() const override { return data_; }
+  size_t size() const override { return len_; }
+  tensorflow::TensorBuffer* root_buffer() override { return root_; }
+  void FillAllocationDescription(
+      tensorflow::AllocationDescription* proto) const override {
+    root_->FillAllocationDescription(proto);
+  }
+  // Prevents input forwarding from mutating memory shared with other slices.
+  bool OwnsMemory() const override { return false; }
+
+ private:
+  ~SliceBuffer() override { root_->Unref(); }
+
+  tensorflow::TensorBuffer* root_;
+  void* data_;
+  size_t len_;
+};
+
 // Write a Java scalar object (java.lang.Integer etc.) to a TF_Tensor.
 void writeScalar(JNIEnv* env, jobject src, TF_DataType dtype, void* dst,
                  size_t dst_size) {
@@ -90,6 +194,7 @@ void writeScalar(JNIEnv* env, jobject src, TF_DataType dtype, void* dst,
     CASE(TF_DOUBLE, jdouble, "doubleValue", "()D", Double);
     CASE(TF_INT32, jint, "intValue", "()I", Int);
     CASE(TF_INT64, jlong, "longValue", "()J", Long);
+    CASE(TF_INT16, jshort, "shortValue", "()S", Short);
 #undef CASE
     case TF_BOOL: {
       jclass clazz = env->FindClass("java/lang/Boolean");
@@ -107,32 +212,33 @@ void writeScalar(JNIEnv* env, jobject src, TF_DataType dtype, void* dst,
 
 // Copy a 1-D array of Java primitive types to the tensor buffer dst.
 // Returns the number of bytes written to dst.
+//
+// The elements are copied directly into dst with Get<Type>ArrayRegion, which
+// avoids the intermediate copy that Get<Type>ArrayElements makes on most JVMs.
 size_t write1DArray(JNIEnv* env, jarray array, TF_DataType dtype, void* dst,
                     size_t dst_size) {
   const int nelems = env->GetArrayLength(array);
-  jboolean is_copy;
   switch (dtype) {
-#define CASE(dtype, jtype, get_type)                                   \
-  case dtype: {                                                        \
-    jtype##Array a = static_cast<jtype##Array>(array);                 \
-    jtype* values = env->Get##get_type##ArrayElements(a, &is_copy);    \
-    size_t to_copy = nelems * elemByteSize(dtype);                     \
-    if (to_copy > dst_size) {                                          \
-      throwException(                                                  \
-          env, kIllegalStateException,                                 \
-          "cannot write Java array of %d bytes to Tensor of %d bytes", \
-          to_copy, dst_size);                                          \
-      to_copy = 0;                                                     \
-    } else {                                                           \
-      memcpy(dst, values, to_copy);                                    \
-    }                                                                  \
-    env->Release##get_type##ArrayElements(a, values, JNI_ABORT);       \
-    return to_copy;                                                    \
+#define CASE(dtype, jtype, get_type)                                    \
+  case dtype: {                                                         \
+    jtype##Array a = static_cast<jtype##Array>(array);                  \
+    size_t to_copy = nelems * elemByteSize(dtype);                      \
+    if (to_copy > dst_size) {                                           \
+      throwException(                                                   \
+          env, kIllegalStateException,                                  \
+          "cannot write Java array of %d bytes to Tensor of %d bytes",  \
+          to_copy, dst_size);                                           \
+      return 0;                                                         \
+    }                                                                   \
+    env->Get##get_type##ArrayRegion(a, 0, nelems,                       \
+                                    static_cast<jtype*>(dst));          \
+    return to_copy;                                                     \
   }
     CASE(TF_FLOAT, jfloat, Float);
     CASE(TF_DOUBLE, jdouble, Double);
     CASE(TF_INT32, jint, Int);
     CASE(TF_INT64, jlong, Long);
+    CASE(TF_INT16, jshort, Short);
     CASE(TF_BOOL, jboolean, Boolean);
 #undef CASE
     default:
@@ -167,6 +273,7 @@ size_t read1DArray(JNIEnv* env, TF_DataType dtype, const void* src,
     CASE(TF_DOUBLE, jdouble, Double);
     CASE(TF_INT32, jint, Int);
     CASE(TF_INT64, jlong, Long);
+    CASE(TF_INT16, jshort, Short);
     CASE(TF_BOOL, jboolean, Boolean);
 #undef CASE
     default:
@@ -220,32 +327,10 @@ JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocate(JNIEnv* env,
                                                             jint dtype,
                                                             jlongArray shape,
                                                             jlong sizeInBytes) {
-  int num_dims = static_cast<int>(env->GetArrayLength(shape));
-  jlong* dims = nullptr;
-  if (num_dims > 0) {
-    jboolean is_copy;
-    dims = env->GetLongArrayElements(shape, &is_copy);
-  }
-  static_assert(sizeof(jlong) == sizeof(int64_t),
-                "Java long is not compatible with the TensorFlow C API");
-  // On some platforms "jlong" is a "long" while "int64_t" is a "long long".
-  //
-  // Thus, static_cast<int64_t*>(dims) will trigger a compiler error:
-  // static_cast from 'jlong *' (aka 'long *') to 'int64_t *' (aka 'long long
-  // *') is not allowed
-  //
-  // Since this array is typically very small, use the guaranteed safe scheme of
-  // creating a copy.
-  int64_t* dims_copy = new int64_t[num_dims];
-  for (int i = 0; i < num_dims; ++i) {
-    dims_copy[i] = static_cast<int64_t>(dims[i]);
-  }
-  TF_Tensor* t = TF_AllocateTensor(static_cast<TF_DataType>(dtype), dims_copy,
+  const int num_dims = static_cast<int>(env->GetArrayLength(shape));
+  std::unique_ptr<int64_t[]> dims(copyDims(env, shape));
+  TF_Tensor* t = TF_AllocateTensor(static_cast<TF_DataType>(dtype), dims.get(),
                                    num_dims, static_cast<size_t>(sizeInBytes));
-  delete[] dims_copy;
-  if (dims != nullptr) {
-    env->ReleaseLongArrayElements(shape, dims, JNI_ABORT);
-  }
   if (t == nullptr) {
     throwException(env, kNullPointerException,
                    "unable to allocate memory for the Tensor");
@@ -284,6 +369,133 @@ JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateScalarBytes(
   return reinterpret_cast<jlong>(t);
 }
 
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateNonScalarBytes(
+    JNIEnv* env, jclass clazz, jlongArray shape, jobjectArray value) {
+  // TF_STRING tensors are encoded with a table of 8-byte offsets followed by
+  // TF_StringEncode-encoded bytes, with one offset and one encoded string per
+  // element. Compute the size of the encoding first, so that the whole tensor
+  // is written in a single allocation.
+  const jsize num_elements = env->GetArrayLength(value);
+  const size_t offsets_len = 8 * static_cast<size_t>(num_elements);
+  size_t data_len = 0;
+  for (jsize i = 0; i < num_elements; ++i) {
+    jbyteArray elem =
+        static_cast<jbyteArray>(env->GetObjectArrayElement(value, i));
+    data_len += TF_StringEncodedSize(env->GetArrayLength(elem));
+    env->DeleteLocalRef(elem);
+  }
+  const int num_dims = static_cast<int>(env->GetArrayLength(shape));
+  std::unique_ptr<int64_t[]> dims(copyDims(env, shape));
+  TF_Tensor* t = TF_AllocateTensor(TF_STRING, dims.get(), num_dims,
+                                   offsets_len + data_len);
+  if (t == nullptr) {
+    throwException(env, kNullPointerException,
+                   "unable to allocate memory for the Tensor");
+    return 0;
+  }
+  char* dst = static_cast<char*>(TF_TensorData(t));
+  char* data = dst + offsets_len;
+  static_assert(sizeof(jbyte) == sizeof(char),
+                "Cannot convert Java byte to a C char");
+  TF_Status* status = TF_NewStatus();
+  uint64_t offset = 0;
+  for (jsize i = 0; i < num_elements; ++i) {
+    memcpy(dst + 8 * i, &offset, sizeof(offset));
+    jbyteArray elem =
+        static_cast<jbyteArray>(env->GetObjectArrayElement(value, i));
+    const size_t src_len = static_cast<size_t>(env->GetArrayLength(elem));
+    void* src = env->GetPrimitiveArrayCritical(elem, nullptr);
+    offset += TF_StringEncode(static_cast<const char*>(src), src_len,
+                              data + offset, data_len - offset, status);
+    env->ReleasePrimitiveArrayCritical(elem, src, JNI_ABORT);
+    env->DeleteLocalRef(elem);
+    if (!throwExceptionIfNotOK(env, status)) {
+      TF_DeleteStatus(status);
+      TF_DeleteTensor(t);
+      return 0;
+    }
+  }
+  TF_DeleteStatus(status);
+  return reinterpret_cast<jlong>(t);
+}
+
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateWrapped(
+    JNIEnv* env, jclass clazz, jint dtype, jlongArray shape, jobject buffer,
+    jlong offset, jlong sizeInBytes) {
+  char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+  if (data == nullptr) {
+    throwException(env, kIllegalArgumentException,
+                   "cannot wrap a buffer that is not direct");
+    return 0;
+  }
+  JavaVM* vm = nullptr;
+  if (env->GetJavaVM(&vm) != JNI_OK) {
+    throwException(env, kIllegalStateException,
+                   "unable to retrieve the JavaVM of the calling thread");
+    return 0;
+  }
+  WrappedBuffer* wrapped = new WrappedBuffer;
+  wrapped->vm = vm;
+  wrapped->buffer = env->NewGlobalRef(buffer);
+  const int num_dims = static_cast<int>(env->GetArrayLength(shape));
+  std::unique_ptr<int64_t[]> dims(copyDims(env, shape));
+  // If the data is not suitably aligned, TF_NewTensor copies it and invokes
+  // releaseWrappedBuffer before returning.
+  TF_Tensor* t = TF_NewTensor(static_cast<TF_DataType>(dtype), dims.get(),
+                              num_dims, data + offset,
+                              static_cast<size_t>(sizeInBytes),
+                              releaseWrappedBuffer, wrapped);
+  if (t == nullptr) {
+    throwException(env, kNullPointerException,
+                   "unable to allocate memory for the Tensor");
+    return 0;
+  }
+  return reinterpret_cast<jlong>(t);
+}
+
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateSlice(
+    JNIEnv* env, jclass clazz, jlong handle, jlongArray shape, jlong offset,
+    jlong byteSize) {
+  TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return 0;
+  const size_t sz = TF_TensorByteSize(t);
+  if (offset < 0 || byteSize < 0 || static_cast<size_t>(offset) > sz ||
+      static_cast<size_t>(byteSize) > sz - static_cast<size_t>(offset)) {
+    throwException(env, kIndexOutOfBoundsException,
+                   "[%lld, %lld) is outside a Tensor of %lld bytes",
+                   static_cast<long long>(offset),
+                   static_cast<long long>(offset + byteSize),
+                   static_cast<long long>(sz));
+    return 0;
+  }
+  const int num_dims = static_cast<int>(env->GetArrayLength(shape));
+  std::unique_ptr<int64_t[]> dims(copyDims(env, shape));
+  // Eigen kernels assume tensor data is aligned to EIGEN_MAX_ALIGN_BYTES, and
+  // TF_TensorToTensor() hands the buffer of a TF_Tensor to them as is. Slices
+  // that do not start at such a boundary (e.g., rows with an odd number of
+  // bytes) are copied to an aligned allocation, as TF_NewTensor() would.
+  char* data = static_cast<char*>(t->buffer->data()) + offset;
+  if (reinterpret_cast<intptr_t>(data) % EIGEN_MAX_ALIGN_BYTES != 0) {
+    TF_Tensor* copy = TF_AllocateTensor(t->dtype, dims.get(), num_dims,
+                                        static_cast<size_t>(byteSize));
+    if (copy == nullptr) {
+      throwException(env, kNullPointerException,
+                     "unable to allocate memory for the Tensor");
+      return 0;
+    }
+    memcpy(TF_TensorData(copy), data, static_cast<size_t>(byteSize));
+    return reinterpret_cast<jlong>(copy);
+  }
+  // TF_NewTensor() cannot be used here: it has no way to share the parent's
+  // buffer.
+  std::vector<tensorflow::int64> dimvec(dims.get(), dims.get() + num_dims);
+  TF_Tensor* slice =
+      new TF_Tensor{t->dtype, tensorflow::TensorShape(dimvec),
+                    new SliceBuffer(t->buffer, static_cast<size_t>(offset),
+                                    static_cast<size_t>(byteSize))};
+  return reinterpret_cast<jlong>(slice);
+}
+
 JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_delete(JNIEnv* env,
                                                          jclass clazz,
                                                          jlong handle) {
@@ -291,15 +503,50 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_delete(JNIEnv* env,
   TF_DeleteTensor(reinterpret_cast<TF_Tensor*>(handle));
 }
 
-JNIEXPORT jobject JNICALL Java_org_tensorflow_Tensor_buffer(JNIEnv* env,
+JNIEXPORT jboolean JNICALL Java_org_tensorflow_Tensor_unshared(JNIEnv* env,
                                                               jclass clazz,
                                                               jlong handle) {
   TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return JNI_FALSE;
+  // The TF_Tensor may share its buffer with tensors held by the TensorFlow
+  // runtime or with other TF_Tensors (e.g., when the output of a
+  // TF_SessionRun() is an input that was fed to it). The C API has no way of
+  // querying this, hence the use of the TF_Tensor internals.
+  tensorflow::TensorBuffer* buf = t->buffer;
+  return (buf->RefCountIsOne() && buf->root_buffer()->RefCountIsOne())
+             ? JNI_TRUE
+             : JNI_FALSE;
+}
+
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_byteSize(JNIEnv* env,
+                                                            jclass clazz,
+                                                            jlong handle) {
+  TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return 0;
+  return static_cast<jlong>(TF_TensorByteSize(t));
+}
+
+JNIEXPORT jobject JNICALL Java_org_tensorflow_Tensor_buffer(JNIEnv* env,
+                                                            jclass clazz,
+                                                            jlong handle,
+                                                            jlong offset,
+                                                            jint length) {
+  TF_Tensor* t = requireHandle(env, handle);
   if (t == nullptr) return nullptr;
-  void* data = TF_TensorData(t);
+  char* data = static_cast<char*>(TF_TensorData(t));
   const size_t sz = TF_TensorByteSize(t);
-
-  return env->NewDirectByteBuffer(data, static_cast<jlong>(sz));
+  // A java.nio.ByteBuffer cannot be larger than 2^31-1 bytes, so the memory of
+  // larger tensors is exposed as multiple buffers.
+  if (offset < 0 || length < 0 || static_cast<size_t>(offset) > sz ||
+      static_cast<size_t>(length) > sz - static_cast<size_t>(offset)) {
+    throwException(env, kIndexOutOfBoundsException,
+                   "[%lld, %lld) is outside a Tensor of %lld bytes",
+                   static_cast<long long>(offset),
+                   static_cast<long long>(offset) + length,
+                   static_cast<long long>(sz));
+    return nullptr;
+  }
+  return env->NewDirectByteBuffer(data + offset, static_cast<jlong>(length));
 }
 
 JNIEXPORT jint JNICALL Java_org_tensorflow_Tensor_dtype(JNIEnv* env,
@@ -347,6 +594,23 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_setValue(JNIEnv* env,
   }
 }
 
+JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_setValueAt(
+    JNIEnv* env, jclass clazz, jlong handle, jobject value, jint num_dims,
+    jlong offset) {
+  TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return;
+  char* data = static_cast<char*>(TF_TensorData(t));
+  const size_t sz = TF_TensorByteSize(t);
+  if (offset < 0 || static_cast<size_t>(offset) > sz) {
+    throwException(env, kIndexOutOfBoundsException,
+                   "offset %lld is outside a Tensor of %d bytes",
+                   static_cast<long long>(offset), sz);
+    return;
+  }
+  writeNDArray(env, static_cast<jarray>(value), TF_TensorType(t), num_dims,
+               data + offset, sz - offset);
+}
+
 #define DEFINE_GET_SCALAR_METHOD(jtype, dtype, method_suffix)                  \
   JNIEXPORT jtype JNICALL Java_org_tensorflow_Tensor_scalar##method_suffix(    \
       JNIEnv* env, jclass clazz, jlong handle) {                               \
@@ -408,6 +672,65 @@ JNIEXPORT jbyteArray JNICALL Java_org_tensorflow_Tensor_scalarBytes(
   return ret;
 }
 
+JNIEXPORT jobjectArray JNICALL
+Java_org_tensorflow_Tensor_stringElements(JNIEnv* env, jclass clazz,
+                                          jlong handle) {
+  TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return nullptr;
+  if (TF_TensorType(t) != TF_STRING) {
+    throwException(env, kIllegalArgumentException,
+                   "Tensor is not a string/bytes tensor");
+    return nullptr;
+  }
+  int64_t num_elements = 1;
+  for (int i = 0; i < TF_NumDims(t); ++i) {
+    num_elements *= TF_Dim(t, i);
+  }
+  const char* data = static_cast<const char*>(TF_TensorData(t));
+  const size_t offsets_len = 8 * static_cast<size_t>(num_elements);
+  const size_t size = TF_TensorByteSize(t);
+  if (offsets_len > size) {
+    throwException(env, kIllegalArgumentException,
+                   "invalid tensor encoding: bad offsets");
+    return nullptr;
+  }
+  const char* src = data + offsets_len;
+  const size_t src_len = size - offsets_len;
+  jclass byte_array_class = env->FindClass("[B");
+  jobjectArray ret = env->NewObjectArray(static_cast<jsize>(num_elements),
+                                         byte_array_class, nullptr);
+  if (ret == nullptr) return nullptr;
+  TF_Status* status = TF_NewStatus();
+  for (int64_t i = 0; i < num_elements; ++i) {
+    uint64_t offset = 0;
+    memcpy(&offset, data + 8 * i, sizeof(offset));
+    if (offset >= src_len) {
+      throwException(env, kIllegalArgumentException,
+                     "invalid tensor encoding: bad offsets");
+      ret = nullptr;
+      break;
+    }
+    const char* dst = nullptr;
+    size_t dst_len = 0;
+    TF_StringDecode(src + offset, src_len - offset, &dst, &dst_len, status);
+    if (!throwExceptionIfNotOK(env, status)) {
+      ret = nullptr;
+      break;
+    }
+    jbyteArray elem = env->NewByteArray(static_cast<jsize>(dst_len));
+    if (elem == nullptr) {
+      ret = nullptr;
+      break;
+    }
+    env->SetByteArrayRegion(elem, 0, static_cast<jsize>(dst_len),
+                            reinterpret_cast<const jbyte*>(dst));
+    env->SetObjectArrayElement(ret, static_cast<jsize>(i), elem);
+    env->DeleteLocalRef(elem);
+  }
+  TF_DeleteStatus(status);
+  return ret;
+}
+
 JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_readNDArray(JNIEnv* env,
                                                               jclass clazz,
                                                               jlong handle,
@@ -427,3 +750,20 @@ JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_readNDArray(JNIEnv* env,
   readNDArray(env, dtype, static_cast<const char*>(data), sz, num_dims,
               static_cast<jarray>(value));
 }
+
+JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_readNDArrayAt(
+    JNIEnv* env, jclass clazz, jlong handle, jobject value, jint num_dims,
+    jlong offset) {
+  TF_Tensor* t = requireHandle(env, handle);
+  if (t == nullptr) return;
+  const char* data = static_cast<const char*>(TF_TensorData(t));
+  const size_t sz = TF_TensorByteSize(t);
+  if (offset < 0 || static_cast<size_t>(offset) > sz) {
+    throwException(env, kIndexOutOfBoundsException,
+                   "offset %lld is outside a Tensor of %d bytes",
+                   static_cast<long long>(offset), sz);
+    return;
+  }
+  readNDArray(env, TF_TensorType(t), data + offset, sz - offset, num_dims,
+              static_cast<jarray>(value));
+}
@@ -38,6 +38,35 @@ JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocate(JNIEnv *, jclass,
 JNIEXPORT jlong JNICALL
 Java_org_tensorflow_Tensor_allocateScalarBytes(JNIEnv *, jclass, jbyteArray);
 
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    allocateNonScalarBytes
+ * Signature: ([J[[B)J
+ */
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateNonScalarBytes(
+    JNIEnv *, jclass, jlongArray, jobjectArray);
+
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    allocateWrapped
+ * Signature: (I[JLjava/nio/Buffer;JJ)J
+ *
+ * REQUIRES: The jobject is a direct java.nio.Buffer with at least offset +
+ * byteSize bytes of capacity.
+ */
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateWrapped(
+    JNIEnv *, jclass, jint, jlongArray, jobject, jlong, jlong);
+
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    allocateSlice
+ * Signature: (J[JJJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_allocateSlice(JNIEnv *,
+                                                                jclass, jlong,
+                                                                jlongArray,
+                                                                jlong, jlong);
+
 /*
  * Class:     org_tensorflow_Tensor
  * Method:    delete
@@ -46,13 +75,30 @@ Java_org_tensorflow_Tensor_allocateScalarBytes(JNIEnv *, jclass, jbyteArray);
 JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_delete(JNIEnv *, jclass,
                                                          jlong);
 
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    unshared
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_tensorflow_Tensor_unshared(JNIEnv *, jclass,
+                                                              jlong);
+
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    byteSize
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_org_tensorflow_Tensor_byteSize(JNIEnv *, jclass,
+                                                            jlong);
+
 /*
  * Class:     org_tensorflow_Tensor
  * Method:    buffer
- * Signature: (J)Ljava/nio/ByteBuffer;
+ * Signature: (JJI)Ljava/nio/ByteBuffer;
  */
 JNIEXPORT jobject JNICALL Java_org_tensorflow_Tensor_buffer(JNIEnv *, jclass,
-                                                              jlong);
+                                                            jlong, jlong,
+                                                            jint);
 
 /*
  * Class:     org_tensorflow_Tensor
@@ -81,6 +127,15 @@ JNIEXPORT jlongArray JNICALL Java_org_tensorflow_Tensor_shape(JNIEnv *, jclass,
 JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_setValue(JNIEnv *, jclass,
                                                            jlong, jobject);
 
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    setValueAt
+ * Signature: (JLjava/lang/Object;IJ)V
+ */
+JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_setValueAt(JNIEnv *, jclass,
+                                                             jlong, jobject,
+                                                             jint, jlong);
+
 /*
  * Class:     org_tensorflow_Tensor
  * Method:    scalarFloat
@@ -133,6 +188,14 @@ JNIEXPORT jbyteArray JNICALL Java_org_tensorflow_Tensor_scalarBytes(JNIEnv *,
                                                                     jclass,
                                                                     jlong);
 
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    stringElements
+ * Signature: (J)[[B
+ */
+JNIEXPORT jobjectArray JNICALL
+Java_org_tensorflow_Tensor_stringElements(JNIEnv *, jclass, jlong);
+
 /*
  * Class:     org_tensorflow_Tensor
  * Method:    readNDArray
@@ -141,6 +204,16 @@ JNIEXPORT jbyteArray JNICALL Java_org_tensorflow_Tensor_scalarBytes(JNIEnv *,
 JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_readNDArray(JNIEnv *, jclass,
                                                               jlong, jobject);
 
+/*
+ * Class:     org_tensorflow_Tensor
+ * Method:    readNDArrayAt
+ * Signature: (JLjava/lang/Object;IJ)V
+ */
+JNIEXPORT void JNICALL Java_org_tensorflow_Tensor_readNDArrayAt(JNIEnv *,
+                                                                jclass, jlong,
+                                                                jobject, jint,
+                                                                jlong);
+
 #ifdef __cplusplus
 }  // extern "C"
 #endif  // __cplusplus
@@ -15,9 +15,23 @@ limitations under the License.
 
 package org.tensorflow;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -70,11 +84,223 @@ public class GraphTest {
     assertEquals(op, op.output(0).op());
   }
 
+  @Test
+  public void importGraphDefFromBuffer() {
+    byte[] graphDef;
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[2][2]);
+      graphDef = g.toGraphDef();
+    }
+    ByteBuffer direct = ByteBuffer.allocateDirect(graphDef.length + 3);
+    direct.position(3);
+    direct.put(graphDef).position(3);
+    try (Graph g = new Graph()) {
+      g.importGraphDef(direct, "d/");
+      validateImportedGraph(g, "d/");
+      assertEquals(3, direct.position());
+    }
+    ByteBuffer heap = ByteBuffer.wrap(graphDef);
+    try (Graph g = new Graph()) {
+      g.importGraphDef(heap, "h/");
+      validateImportedGraph(g, "h/");
+      assertEquals(0, heap.position());
+    }
+  }
+
+  @Test
+  public void importGraphDefFromFile() throws IOException {
+    Path path = Files.createTempFile("graph", ".pb");
+    try {
+      try (Graph g = new Graph()) {
+        TestUtil.transpose_A_times_X(g, new int[2][2]);
+        Files.write(path, g.toGraphDef());
+      }
+      try (Graph g = new Graph()) {
+        g.importGraphDef(path.toFile());
+        validateImportedGraph(g, "");
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void iterateOverOperations() {
+    try (Graph g = new Graph()) {
+      Iterator<Operation> iterator = g.operations();
+      assertFalse(iterator.hasNext());
+
+      TestUtil.transpose_A_times_X(g, new int[2][2]);
+      HashSet<String> names = new HashSet<String>();
+      iterator = g.operations();
+      while (iterator.hasNext()) {
+        names.add(iterator.next().name());
+      }
+      assertEquals(3, names.size());
+      assertTrue(names.contains("A"));
+      assertTrue(names.contains("X"));
+      assertTrue(names.contains("Y"));
+    }
+  }
+
+  @Test
+  public void operationLookupIsIndexed() {
+    try (Graph g = new Graph()) {
+      assertNull(g.operation("A"));
+      TestUtil.constant(g, "A", 1);
+      Operation a = g.operation("A");
+      assertNotNull(a);
+      assertSame(a, g.operation("A"));
+      assertNull(g.operation("B"));
+      TestUtil.constant(g, "B", 2);
+      assertNotNull(g.operation("B"));
+      assertSame(a, g.operation("A"));
+      assertSame(a.output(0).shape(), a.output(0).shape());
+      assertEquals(DataType.INT32, a.output(0).dataType());
+    }
+  }
+
+  @Test
+  public void importPrunedGraphDef() {
+    byte[] graphDef;
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[2][2]);
+      TestUtil.constant(g, "Unused", new float[1000]);
+      graphDef = g.toGraphDef();
+    }
+    try (Graph g = new Graph()) {
+      Graph.ImportResult result =
+          g.importGraphDef(
+              graphDef,
+              "",
+              ImportOptions.builder()
+                  .pruneTo(Arrays.asList("Y:0"), Collections.<String>emptyList())
+                  .build());
+      assertEquals(3, result.numImportedNodes());
+      assertEquals(1, result.numDroppedNodes());
+      assertTrue(result.numDroppedConstantBytes() > 4000);
+      validateImportedGraph(g, "");
+      assertNull(g.operation("Unused"));
+    }
+    try (Graph g = new Graph()) {
+      Graph.ImportResult result =
+          g.importGraphDef(
+              graphDef,
+              "p",
+              ImportOptions.builder().pruneTo(Arrays.asList("Y"), Arrays.asList("Y")).build());
+      assertEquals(1, result.numImportedNodes());
+      assertEquals(3, result.numDroppedNodes());
+      Operation y = g.operation("p/Y");
+      assertEquals("Placeholder", y.type());
+      assertEquals(DataType.INT32, y.output(0).dataType());
+    }
+  }
+
+  @Test
+  public void pruneFedNodesToTheirOutputType() {
+    byte[] graphDef;
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[2][2]);
+      // Equal has an attribute T, the type of its inputs, and outputs booleans.
+      Output y = g.operation("Y").output(0);
+      Output e = g.opBuilder("Equal", "E").addInput(y).addInput(y).build().output(0);
+      g.opBuilder("LogicalNot", "N").addInput(e).build();
+      g.opBuilder("Unique", "U").addInput(g.operation("X").output(0)).build();
+      graphDef = g.toGraphDef();
+    }
+    try (Graph g = new Graph()) {
+      g.importGraphDef(
+          graphDef,
+          "",
+          ImportOptions.builder().pruneTo(Arrays.asList("N"), Arrays.asList("E")).build());
+      Operation e = g.operation("E");
+      assertEquals("Placeholder", e.type());
+      assertEquals(DataType.BOOL, e.output(0).dataType());
+      assertEquals(2, e.output(0).shape().numDimensions());
+      assertNull(g.operation("Y"));
+      try (Session s = new Session(g);
+          Tensor in = Tensor.create(new boolean[][] {{true, false}});
+          Tensor out = s.runner().feed("E", in).fetch("N").run().get(0)) {
+        assertArrayEquals(new boolean[] {false, true}, out.copyTo(new boolean[1][2])[0]);
+      }
+    }
+    try (Graph g = new Graph()) {
+      g.importGraphDef(
+          graphDef,
+          "",
+          ImportOptions.builder().pruneTo(Arrays.asList("U:1"), Arrays.asList("U")).build());
+      fail("should not replace a node used through its second output by a Placeholder");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void importWithInputMapping() {
+    byte[] graphDef;
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      graphDef = g.toGraphDef();
+    }
+    try (Graph g = new Graph()) {
+      Output b = TestUtil.constant(g, "B", new int[][] {{1}, {1}});
+      Graph.ImportResult result =
+          g.importGraphDef(
+              graphDef,
+              "",
+              ImportOptions.builder()
+                  .pruneTo(Arrays.asList("Y"), Collections.<String>emptyList())
+                  .mapInput("A", b)
+                  .build());
+      assertEquals(2, result.numImportedNodes());
+      assertEquals(1, result.numDroppedNodes());
+      assertNull(g.operation("A"));
+      try (Session s = new Session(g);
+          Tensor x = Tensor.create(new int[][] {{5}, {7}});
+          Tensor y = s.runner().feed("X", x).fetch("Y").run().get(0)) {
+        assertEquals(12, y.copyTo(new int[1][1])[0][0]);
+      }
+    }
+  }
+
+  @Test
+  public void failInputMappingToAnotherGraph() {
+    byte[] graphDef;
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      graphDef = g.toGraphDef();
+    }
+    try (Graph g = new Graph();
+        Graph other = new Graph()) {
+      Output b = TestUtil.constant(other, "B", new int[][] {{1}, {1}});
+      g.importGraphDef(graphDef, "", ImportOptions.builder().mapInput("A", b).build());
+      fail("should not map an input to an Output of another Graph");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void failPruningToMissingNode() {
+    try (Graph g = new Graph()) {
+      byte[] graphDef = g.toGraphDef();
+      g.importGraphDef(
+          graphDef,
+          "",
+          ImportOptions.builder()
+              .pruneTo(Arrays.asList("Missing"), Collections.<String>emptyList())
+              .build());
+      fail("should fail to prune to a missing node");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   @Test
   public void failImportOnInvalidGraphDefs() {
     try (Graph g = new Graph()) {
       try {
-        g.importGraphDef(null);
+        g.importGraphDef((byte[]) null);
       } catch (IllegalArgumentException e) {
         // expected exception.
       }
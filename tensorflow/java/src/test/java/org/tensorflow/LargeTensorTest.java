@@ -0,0 +1,95 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link org.tensorflow.Tensor}s larger than 2GB.
+ *
+ * <p>These tests need several gigabytes of memory, hence are not run by default.
+ */
+@RunWith(JUnit4.class)
+public class LargeTensorTest {
+  private static final long GB = 1L << 30;
+  private static final float EPSILON_F = 1e-7f;
+
+  @Test
+  public void createFromByteBuffers() {
+    ByteBuffer[] chunks = new ByteBuffer[3];
+    for (int i = 0; i < chunks.length; ++i) {
+      chunks[i] = ByteBuffer.allocateDirect((int) GB);
+      while (chunks[i].hasRemaining()) {
+        chunks[i].put((byte) (i + 1));
+      }
+      chunks[i].flip();
+    }
+    try (Tensor t = Tensor.create(DataType.UINT8, new long[] {3 * GB}, chunks)) {
+      assertEquals(3 * GB, t.numBytes());
+      assertEquals(3 * GB, t.numElements());
+
+      ByteBuffer[] views = t.asByteBuffers();
+      long total = 0;
+      for (ByteBuffer v : views) {
+        total += v.remaining();
+      }
+      assertEquals(3 * GB, total);
+      assertEquals(1, views[0].get(0));
+      assertEquals(2, views[(int) (GB / views[0].capacity())].get(0));
+      ByteBuffer last = views[views.length - 1];
+      assertEquals(3, last.get(last.limit() - 1));
+
+      try {
+        t.asByteBuffer();
+        fail("should not be able to view a 3GB tensor as a single ByteBuffer");
+      } catch (IllegalStateException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void createFromArray() {
+    float[][] large = new float[3][1 << 28];
+    for (int i = 0; i < large.length; ++i) {
+      large[i][0] = i + 1;
+      large[i][large[i].length - 1] = -(i + 1);
+    }
+    try (Tensor t = Tensor.create(large)) {
+      assertEquals(3 * GB, t.numBytes());
+
+      ByteBuffer[] views = t.asByteBuffers();
+      ByteBuffer last = views[views.length - 1];
+      assertEquals(-3f, last.getFloat(last.limit() - 4), EPSILON_F);
+
+      for (float[] row : large) {
+        row[0] = 0;
+        row[row.length - 1] = 0;
+      }
+      t.copyTo(large);
+      for (int i = 0; i < large.length; ++i) {
+        assertEquals(i + 1, large[i][0], EPSILON_F);
+        assertEquals(-(i + 1), large[i][large[i].length - 1], EPSILON_F);
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link org.tensorflow.ReferenceCount}. */
+@RunWith(JUnit4.class)
+public class ReferenceCountTest {
+
+  @Test
+  public void acquireAndClose() {
+    ReferenceCount refs = new ReferenceCount();
+    assertTrue(refs.acquire());
+    assertTrue(refs.acquire());
+    refs.release();
+    refs.release();
+    assertFalse(refs.isClosed());
+    assertTrue(refs.close());
+    assertTrue(refs.isClosed());
+    assertFalse(refs.acquire());
+    assertFalse(refs.close());
+  }
+
+  @Test
+  public void closeWaitsForRelease() throws InterruptedException {
+    final ReferenceCount refs = new ReferenceCount();
+    assertTrue(refs.acquire());
+    final AtomicBoolean closed = new AtomicBoolean();
+    Thread closer =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                closed.set(refs.close());
+              }
+            });
+    closer.start();
+    while (!refs.isClosed()) {
+      Thread.yield();
+    }
+    assertFalse(refs.acquire());
+    Thread.sleep(10);
+    assertFalse(closed.get());
+    refs.release();
+    closer.join();
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void closeRacesWithUse() throws InterruptedException {
+    final ReferenceCount refs = new ReferenceCount();
+    final AtomicInteger inUse = new AtomicInteger();
+    final AtomicBoolean freed = new AtomicBoolean();
+    final AtomicBoolean usedAfterFree = new AtomicBoolean();
+    final CountDownLatch started = new CountDownLatch(8);
+    Thread[] users = new Thread[8];
+    for (int i = 0; i < users.length; ++i) {
+      users[i] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  started.countDown();
+                  while (refs.acquire()) {
+                    inUse.incrementAndGet();
+                    if (freed.get()) {
+                      usedAfterFree.set(true);
+                    }
+                    inUse.decrementAndGet();
+                    refs.release();
+                  }
+                }
+              });
+      users[i].start();
+    }
+    started.await();
+    assertTrue(refs.close());
+    assertEquals(0, inUse.get());
+    freed.set(true);
+    for (Thread t : users) {
+      t.join();
+    }
+    assertFalse(usedAfterFree.get());
+  }
+}
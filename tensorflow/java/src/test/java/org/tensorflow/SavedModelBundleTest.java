@@ -19,6 +19,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -39,6 +40,17 @@ public class SavedModelBundleTest {
     }
   }
 
+  @Test
+  public void warmUp() {
+    try (SavedModelBundle bundle = SavedModelBundle.load(SAVED_MODEL_PATH, "serve")) {
+      Session.WarmUpStats stats =
+          bundle.warmUp(Collections.singletonList("x"), Collections.singletonList("y"), 20);
+      assertTrue(stats.numRuns() > 0);
+      assertTrue(stats.numRuns() <= 20);
+      assertTrue(stats.converged() || stats.numRuns() == 20);
+    }
+  }
+
   @Test
   public void loadNonExistentBundle() {
     try {
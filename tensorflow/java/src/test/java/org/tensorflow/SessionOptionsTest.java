@@ -0,0 +1,118 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link org.tensorflow.SessionOptions} and {@link org.tensorflow.RunOptions}. */
+@RunWith(JUnit4.class)
+public class SessionOptionsTest {
+
+  @Test
+  public void emptyByDefault() {
+    assertEquals(0, SessionOptions.builder().build().toByteArray().length);
+    assertEquals(0, RunOptions.builder().build().toByteArray().length);
+  }
+
+  @Test
+  public void threading() {
+    byte[] expected = {0x10, 0x01, 0x28, 0x01, 0x48, 0x01};
+    SessionOptions options =
+        SessionOptions.builder()
+            .interOpParallelismThreads(1)
+            .intraOpParallelismThreads(1)
+            .usePerSessionThreads(true)
+            .build();
+    assertArrayEquals(expected, options.toByteArray());
+  }
+
+  @Test
+  public void threadPools() {
+    byte[] expected = {0x62, 0x02, 0x08, 0x04, 0x62, 0x05, 0x08, 0x00, 0x12, 0x01, 0x67};
+    SessionOptions options =
+        SessionOptions.builder()
+            .addSessionInterOpThreadPool(4, null)
+            .addSessionInterOpThreadPool(0, "g")
+            .build();
+    assertArrayEquals(expected, options.toByteArray());
+  }
+
+  @Test
+  public void optimizerAndTimeout() {
+    byte[] expected = {
+      // graph_options { optimizer_options { do_constant_folding: true, opt_level: L0,
+      //                                      global_jit_level: ON_1 } }
+      0x52, 0x11, 0x1a, 0x0f, 0x10, 0x01, 0x18,
+      (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+      (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x01,
+      0x28, 0x01,
+      // operation_timeout_in_ms: 300
+      0x58, (byte) 0xac, 0x02
+    };
+    SessionOptions options =
+        SessionOptions.builder()
+            .doConstantFolding(true)
+            .optimizerLevel(SessionOptions.OptimizerLevel.L0)
+            .globalJitLevel(SessionOptions.JitLevel.ON_1)
+            .operationTimeout(300, TimeUnit.MILLISECONDS)
+            .build();
+    assertArrayEquals(expected, options.toByteArray());
+  }
+
+  @Test
+  public void constantFoldingSelectsL0() {
+    byte[] expected = {
+      // graph_options { optimizer_options { do_constant_folding: false, opt_level: L0 } }
+      0x52, 0x0f, 0x1a, 0x0d, 0x10, 0x00, 0x18,
+      (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+      (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x01
+    };
+    assertArrayEquals(
+        expected, SessionOptions.builder().doConstantFolding(false).build().toByteArray());
+  }
+
+  @Test
+  public void runOptions() {
+    assertArrayEquals(
+        new byte[] {0x08, 0x03},
+        RunOptions.builder().traceLevel(RunOptions.TraceLevel.FULL_TRACE).build().toByteArray());
+    assertArrayEquals(
+        new byte[] {0x10, (byte) 0xe8, 0x07, 0x18, 0x01, 0x28, 0x01},
+        RunOptions.builder()
+            .timeout(1, TimeUnit.SECONDS)
+            .interOpThreadPool(1)
+            .outputPartitionGraphs(true)
+            .build()
+            .toByteArray());
+  }
+
+  @Test
+  public void failOnNegativeThreads() {
+    try {
+      SessionOptions.builder().intraOpParallelismThreads(-1);
+      fail("should have failed on a negative number of threads");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -17,11 +17,25 @@ package org.tensorflow;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -92,6 +106,269 @@ public class SessionTest {
     }
   }
 
+  @Test
+  public void prepare() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      Session.Callable c =
+          s.prepare(Arrays.asList("X"), Arrays.asList("Y"), Collections.<String>emptyList());
+      assertEquals(1, c.numFeeds());
+      assertEquals(1, c.numFetches());
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}});
+          AutoCloseableList<Tensor> outputs = new AutoCloseableList<Tensor>(c.call(x))) {
+        assertEquals(1, outputs.size());
+        assertArrayEquals(new int[][] {{31}}, outputs.get(0).copyTo(new int[1][1]));
+      }
+      // Reuse with caller-provided output storage.
+      Tensor[] outputs = new Tensor[1];
+      try (Tensor x = Tensor.create(new int[][] {{1}, {1}})) {
+        c.call(new Tensor[] {x}, outputs);
+      }
+      try (Tensor y = outputs[0]) {
+        assertArrayEquals(new int[][] {{5}}, y.copyTo(new int[1][1]));
+      }
+      try {
+        c.call();
+        fail("should have failed on a missing feed");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void prepareAfterClose() {
+    Graph g = new Graph();
+    Session s = new Session(g);
+    TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+    Output x = g.operation("X").output(0);
+    Output y = g.operation("Y").output(0);
+    Session.Callable c =
+        s.prepare(Arrays.asList(x), Arrays.asList(y), Collections.<Operation>emptyList());
+    s.close();
+    try (Tensor t = Tensor.create(new int[][] {{5}, {7}})) {
+      c.call(t);
+      fail("should not be able to call after the Session is closed");
+    } catch (IllegalStateException e) {
+      // expected
+    } finally {
+      g.close();
+    }
+  }
+
+  @Test
+  public void fetchInto() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      Output y = g.operation("Y").output(0);
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}});
+          Tensor dst = Tensor.create(new int[][] {{0}})) {
+        List<Tensor> outputs = s.runner().feed("X", x).fetchInto(y, dst).run();
+        assertEquals(1, outputs.size());
+        assertNull(outputs.get(0));
+        assertArrayEquals(new int[][] {{31}}, dst.copyTo(new int[1][1]));
+
+        // Falls back to returning a new Tensor when dst cannot hold the value.
+        try (Tensor mismatched = Tensor.create(new int[] {0, 0});
+            AutoCloseableList<Tensor> fallback =
+                new AutoCloseableList<Tensor>(
+                    s.runner().feed("X", x).fetchInto(y, mismatched).run())) {
+          assertArrayEquals(new int[][] {{31}}, fallback.get(0).copyTo(new int[1][1]));
+          assertArrayEquals(new int[] {0, 0}, mismatched.copyTo(new int[2]));
+        }
+        FloatBuffer buf = FloatBuffer.allocate(1);
+        try (AutoCloseableList<Tensor> fallback =
+            new AutoCloseableList<Tensor>(s.runner().feed("X", x).fetchInto(y, buf).run())) {
+          assertEquals(DataType.INT32, fallback.get(0).dataType());
+          assertEquals(0, buf.position());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void fetchIntoDoesNotWriteBorrowedMemory() throws IOException {
+    Path path = Files.createTempFile("tensor", ".bin");
+    try {
+      Files.write(path, new byte[8]);
+      try (Graph g = new Graph();
+          Session s = new Session(g);
+          Tensor mapped = Tensor.fromMappedFile(path.toFile(), DataType.FLOAT, new long[] {2}, 0);
+          Tensor parent = Tensor.create(new float[][] {{0f, 0f}});
+          Tensor slice = parent.slice(0, 1)) {
+        Output c = TestUtil.constant(g, "C", new float[] {1f, 2f});
+        // The mapping is read-only.
+        try (AutoCloseableList<Tensor> outputs =
+            new AutoCloseableList<Tensor>(s.runner().fetchInto(c, mapped).run())) {
+          assertArrayEquals(new float[] {1f, 2f}, outputs.get(0).copyTo(new float[2]), 0f);
+        }
+        assertArrayEquals(new byte[8], Files.readAllBytes(path));
+        // The memory of a slice belongs to the Tensor it was sliced from.
+        Output r = TestUtil.constant(g, "R", new float[][] {{1f, 2f}});
+        try (AutoCloseableList<Tensor> outputs =
+            new AutoCloseableList<Tensor>(s.runner().fetchInto(r, slice).run())) {
+          assertEquals(1, outputs.size());
+          assertNotNull(outputs.get(0));
+        }
+        assertArrayEquals(new float[][] {{0f, 0f}}, parent.copyTo(new float[1][2]));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void fetchIntoClosesOutputsOnFailure() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output c = TestUtil.constant(g, "C", new float[] {1f, 2f});
+      TensorFlow.enableMemoryTracking(false);
+      try {
+        long before = TensorFlow.memoryStats().total().count();
+        try {
+          s.runner().fetch(c).fetchInto(c, FloatBuffer.allocate(2).asReadOnlyBuffer()).run();
+          fail("should not write into a read-only buffer");
+        } catch (ReadOnlyBufferException e) {
+          // expected
+        }
+        assertEquals(before, TensorFlow.memoryStats().total().count());
+      } finally {
+        TensorFlow.disableMemoryTracking();
+      }
+    }
+  }
+
+  @Test
+  public void runAsync() throws Exception {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        Future<List<Tensor>> f = s.runner().feed("X", x).fetch("Y").runAsync();
+        try (AutoCloseableList<Tensor> outputs = new AutoCloseableList<Tensor>(f.get())) {
+          assertArrayEquals(new int[][] {{31}}, outputs.get(0).copyTo(new int[1][1]));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void runAsyncRejection() throws Exception {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      // An executor that never runs anything keeps submitted runs pending.
+      final List<Runnable> queued = new ArrayList<Runnable>();
+      Executor held =
+          new Executor() {
+            @Override
+            public void execute(Runnable r) {
+              queued.add(r);
+            }
+          };
+      s.setAsyncLimits(1, Session.RejectionPolicy.ABORT);
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        Future<List<Tensor>> pending = s.runner().feed("X", x).fetch("Y").runAsync(held);
+        try {
+          s.runner().feed("X", x).fetch("Y").runAsync(held);
+          fail("should have rejected a run beyond the limit");
+        } catch (RejectedExecutionException e) {
+          // expected
+        }
+
+        s.setAsyncLimits(1, Session.RejectionPolicy.CALLER_RUNS);
+        Future<List<Tensor>> done = s.runner().feed("X", x).fetch("Y").runAsync(held);
+        assertTrue(done.isDone());
+        assertEquals(1, queued.size());
+        try (AutoCloseableList<Tensor> outputs = new AutoCloseableList<Tensor>(done.get())) {
+          assertArrayEquals(new int[][] {{31}}, outputs.get(0).copyTo(new int[1][1]));
+        }
+
+        // Cancelling the pending run frees its slot, and close() does not wait for it.
+        assertTrue(pending.cancel(false));
+        s.setAsyncLimits(1, Session.RejectionPolicy.ABORT);
+        Future<List<Tensor>> next = s.runner().feed("X", x).fetch("Y").runAsync(held);
+        queued.get(1).run();
+        try (AutoCloseableList<Tensor> outputs = new AutoCloseableList<Tensor>(next.get())) {
+          assertEquals(1, outputs.size());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void runWithTimeout() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      // Dequeuing from an empty queue blocks until the deadline.
+      DataType[] types = {DataType.FLOAT};
+      Operation queue =
+          g.opBuilder("FIFOQueueV2", "queue").setAttr("component_types", types).build();
+      Operation dequeue =
+          g.opBuilder("QueueDequeueV2", "dequeue")
+              .addInput(queue.output(0))
+              .setAttr("component_types", types)
+              .build();
+      try {
+        s.runner().fetch(dequeue.output(0)).withTimeout(100, TimeUnit.MILLISECONDS).run();
+        fail("should have exceeded the deadline");
+      } catch (DeadlineExceededException e) {
+        // expected
+      }
+      try {
+        s.runner().withTimeout(0, TimeUnit.SECONDS);
+        fail("should have rejected a zero timeout");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void failOnCancelledRun() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      // Enqueuing into a closed queue is cancelled.
+      DataType[] types = {DataType.FLOAT};
+      Operation queue =
+          g.opBuilder("FIFOQueueV2", "queue").setAttr("component_types", types).build();
+      Operation close = g.opBuilder("QueueCloseV2", "close").addInput(queue.output(0)).build();
+      Operation enqueue =
+          g.opBuilder("QueueEnqueueV2", "enqueue")
+              .addInput(queue.output(0))
+              .addInputList(new Output[] {TestUtil.constant(g, "x", 1f)})
+              .build();
+      s.runner().addTarget(close).run();
+      try {
+        s.runner().addTarget(enqueue).run();
+        fail("should have been cancelled");
+      } catch (TensorFlowException e) {
+        assertTrue(e instanceof CancelledException);
+      }
+    }
+  }
+
+  @Test
+  public void warmUp() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        Session.WarmUpStats stats = s.runner().feed("X", x).fetch("Y").warmUp(50);
+        assertTrue(stats.numRuns() > Session.WarmUpStats.WINDOW || !stats.converged());
+        assertTrue(stats.numRuns() <= 50);
+      }
+      try {
+        s.runner().fetch("Y").warmUp(0);
+        fail("should have rejected a non-positive number of runs");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
   @Test
   public void runWithMetadata() {
     try (Graph g = new Graph();
@@ -155,6 +432,33 @@ public class SessionTest {
         Session s = new Session(g, singleThreadConfigProto())) {}
   }
 
+  @Test
+  public void createWithSessionOptions() {
+    SessionOptions options =
+        SessionOptions.builder()
+            .intraOpParallelismThreads(1)
+            .interOpParallelismThreads(1)
+            .optimizerLevel(SessionOptions.OptimizerLevel.L0)
+            .build();
+    try (Graph g = new Graph();
+        Session s = new Session(g, options)) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      RunOptions runOptions =
+          RunOptions.builder()
+              .traceLevel(RunOptions.TraceLevel.FULL_TRACE)
+              .timeout(1, TimeUnit.MINUTES)
+              .build();
+      try (Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        Session.Run result =
+            s.runner().feed("X", x).fetch("Y").setOptions(runOptions).runAndFetchMetadata();
+        try (AutoCloseableList<Tensor> outputs = new AutoCloseableList<Tensor>(result.outputs)) {
+          assertArrayEquals(new int[][] {{31}}, outputs.get(0).copyTo(new int[1][1]));
+        }
+        assertTrue(result.metadata.length > 0);
+      }
+    }
+  }
+
   private static final class AutoCloseableList<E extends AutoCloseable> extends ArrayList<E>
       implements AutoCloseable {
     AutoCloseableList(Collection<? extends E> c) {
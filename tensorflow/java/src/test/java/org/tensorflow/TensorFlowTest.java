@@ -15,6 +15,8 @@ limitations under the License.
 
 package org.tensorflow;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -36,4 +38,28 @@ public class TensorFlowTest {
     // was not sorted out. Revisit? Till then, at least exercise the code.
     assertTrue(TensorFlow.registeredOpList().length > 0);
   }
+
+  @Test
+  public void memoryStats() {
+    TensorFlow.enableMemoryTracking(true);
+    try {
+      MemoryStats before = TensorFlow.memoryStats();
+      try (Tensor t = Tensor.create(new float[] {1f, 2f, 3f})) {
+        MemoryStats during = TensorFlow.memoryStats();
+        assertEquals(before.total().count() + 1, during.total().count());
+        assertEquals(before.total().bytes() + 12, during.total().bytes());
+        assertEquals(1, during.byDataType().get(DataType.FLOAT).count());
+        boolean found = false;
+        for (String site : during.byAllocationSite().keySet()) {
+          found |= site.contains("TensorFlowTest.memoryStats");
+        }
+        assertTrue(found);
+      }
+      MemoryStats after = TensorFlow.memoryStats();
+      assertEquals(before.total().count(), after.total().count());
+      assertNull(after.byDataType().get(DataType.FLOAT));
+    } finally {
+      TensorFlow.disableMemoryTracking();
+    }
+  }
 }
@@ -0,0 +1,159 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link org.tensorflow.TensorPool}. */
+@RunWith(JUnit4.class)
+public class TensorPoolTest {
+  private static final float EPSILON_F = 1e-7f;
+
+  @Test
+  public void recyclesClosedTensors() {
+    long[] shape = {2, 2};
+    try (TensorPool pool = new TensorPool(1024)) {
+      try (Tensor t = pool.create(shape, FloatBuffer.wrap(new float[] {1f, 2f, 3f, 4f}))) {
+        assertEquals(DataType.FLOAT, t.dataType());
+        assertArrayEquals(shape, t.shape());
+      }
+      assertEquals(16, pool.pooledBytes());
+      try (Tensor t = pool.create(shape, FloatBuffer.wrap(new float[] {5f, 6f, 7f, 8f}))) {
+        assertArrayEquals(
+            new float[][] {{5f, 6f}, {7f, 8f}}, t.copyTo(new float[2][2]));
+        assertEquals(0, pool.pooledBytes());
+      }
+      assertEquals(1, pool.hits());
+      assertEquals(1, pool.misses());
+    }
+  }
+
+  @Test
+  public void matchesDataTypeAndShape() {
+    try (TensorPool pool = new TensorPool(1024)) {
+      pool.create(new long[] {4}, FloatBuffer.wrap(new float[] {1f, 2f, 3f, 4f})).close();
+      try (Tensor t = pool.create(new long[] {4}, IntBuffer.wrap(new int[] {1, 2, 3, 4}))) {
+        assertEquals(DataType.INT32, t.dataType());
+      }
+      try (Tensor t = pool.create(new long[] {2, 2}, FloatBuffer.wrap(new float[] {1, 2, 3, 4}))) {
+        assertArrayEquals(new long[] {2, 2}, t.shape());
+      }
+      assertEquals(0, pool.hits());
+      assertEquals(3, pool.misses());
+    }
+  }
+
+  @Test
+  public void recyclesUnderAcquiredShape() {
+    try (TensorPool pool = new TensorPool(1024)) {
+      Tensor t = pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {1f, 2f}));
+      // Changing the array returned by shape() must not file the memory under another shape.
+      t.shape()[0] = 64;
+      t.close();
+      try (Tensor u = pool.create(new long[] {64}, FloatBuffer.wrap(new float[64]))) {
+        assertEquals(64, u.numElements());
+      }
+      assertEquals(0, pool.hits());
+      try (Tensor u = pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {3f, 4f}))) {
+        assertArrayEquals(new long[] {2}, u.shape());
+      }
+      assertEquals(1, pool.hits());
+    }
+  }
+
+  @Test
+  public void evictsBeyondMaxBytes() {
+    try (TensorPool pool = new TensorPool(16)) {
+      pool.create(new long[] {8}, FloatBuffer.wrap(new float[8])).close();
+      assertEquals(0, pool.pooledBytes());
+
+      Tensor a = pool.create(new long[] {4}, FloatBuffer.wrap(new float[4]));
+      Tensor b = pool.create(new long[] {2}, FloatBuffer.wrap(new float[2]));
+      a.close();
+      assertEquals(16, pool.pooledBytes());
+      // The memory of a, although cached by this thread, is evicted to make room for b.
+      b.close();
+      assertEquals(8, pool.pooledBytes());
+      assertEquals(1, pool.evictions());
+    }
+  }
+
+  @Test
+  public void evictsMemoryCachedByTerminatedThreads() throws InterruptedException {
+    try (final TensorPool pool = new TensorPool(16)) {
+      Thread t =
+          new Thread() {
+            @Override
+            public void run() {
+              pool.create(new long[] {4}, FloatBuffer.wrap(new float[4])).close();
+            }
+          };
+      t.start();
+      t.join();
+      assertEquals(16, pool.pooledBytes());
+
+      pool.create(new long[] {2}, FloatBuffer.wrap(new float[2])).close();
+      assertEquals(8, pool.pooledBytes());
+      assertEquals(1, pool.evictions());
+      // The memory cached by this thread is reused.
+      pool.create(new long[] {2}, FloatBuffer.wrap(new float[2])).close();
+      assertEquals(1, pool.hits());
+    }
+  }
+
+  @Test
+  public void doesNotRecycleSharedMemory() {
+    try (Graph g = new Graph();
+        Session s = new Session(g);
+        TensorPool pool = new TensorPool(1024)) {
+      Output x = TestUtil.placeholder(g, "x", DataType.FLOAT);
+      g.opBuilder("Identity", "y").addInput(x).setAttr("T", DataType.FLOAT).build();
+      Tensor in = pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {1f, 2f}));
+      try (Tensor out = s.runner().feed("x", in).fetch("y").run().get(0)) {
+        in.close();
+        try (Tensor other = pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {3f, 4f}))) {
+          assertArrayEquals(new float[] {1f, 2f}, out.copyTo(new float[2]), EPSILON_F);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void close() {
+    TensorPool pool = new TensorPool(1024);
+    Tensor t = pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {1f, 2f}));
+    pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {3f, 4f})).close();
+    pool.close();
+    assertEquals(0, pool.pooledBytes());
+    assertArrayEquals(new float[] {1f, 2f}, t.copyTo(new float[2]), EPSILON_F);
+    t.close();
+    assertEquals(0, pool.pooledBytes());
+    try {
+      pool.create(new long[] {2}, FloatBuffer.wrap(new float[] {1f, 2f}));
+      fail("should not be able to create Tensors from a closed pool");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+}
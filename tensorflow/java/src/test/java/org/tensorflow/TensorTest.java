@@ -21,15 +21,22 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.tensorflow.types.Conversions;
 
 /** Unit tests for {@link org.tensorflow.Tensor}. */
 @RunWith(JUnit4.class)
@@ -48,7 +55,7 @@ public class TensorTest {
     long[] strings_shape = {};
     byte[] strings_; // raw TF_STRING
     try (Tensor t = Tensor.create(strings)) {
-      ByteBuffer to = ByteBuffer.allocate(t.numBytes());
+      ByteBuffer to = ByteBuffer.allocate((int) t.numBytes());
       t.writeTo(to);
       strings_ = to.array();
     }
@@ -158,6 +165,244 @@ public class TensorTest {
     }
   }
 
+  @Test
+  public void wrapDirectBuffer() {
+    float[] floats = {1f, 2f, 3f, 4f, 5f, 6f};
+    ByteBuffer buf = ByteBuffer.allocateDirect(4 * floats.length).order(ByteOrder.nativeOrder());
+    buf.asFloatBuffer().put(floats);
+
+    try (Tensor t = Tensor.wrap(DataType.FLOAT, new long[] {2, 3}, buf)) {
+      assertEquals(DataType.FLOAT, t.dataType());
+      assertArrayEquals(new long[] {2, 3}, t.shape());
+      float[][] expected = {{1f, 2f, 3f}, {4f, 5f, 6f}};
+      assertArrayEquals(expected, t.copyTo(new float[2][3]));
+    }
+    // wrap() does not consume the buffer.
+    assertEquals(4 * floats.length, buf.remaining());
+
+    // Typed buffers are wrapped starting from their current position.
+    FloatBuffer fbuf = buf.asFloatBuffer();
+    fbuf.position(2);
+    try (Tensor t = Tensor.wrap(new long[] {4}, fbuf)) {
+      assertArrayEquals(new float[] {3f, 4f, 5f, 6f}, t.copyTo(new float[4]), EPSILON_F);
+    }
+  }
+
+  @Test
+  public void failWrapOnIncompatibleBuffer() {
+    try (Tensor t = Tensor.wrap(new long[] {2}, FloatBuffer.wrap(new float[] {1f, 2f}))) {
+      fail("should have failed on a non-direct buffer");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    ByteOrder nonNative =
+        ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+            ? ByteOrder.BIG_ENDIAN
+            : ByteOrder.LITTLE_ENDIAN;
+    IntBuffer ints = ByteBuffer.allocateDirect(8).order(nonNative).asIntBuffer();
+    try (Tensor t = Tensor.wrap(new long[] {2}, ints)) {
+      fail("should have failed on a buffer with non-native byte order");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    ByteBuffer bytes = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());
+    try (Tensor t = Tensor.wrap(DataType.INT32, new long[] {3}, bytes)) {
+      fail("should have failed on shape mismatch");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void fromMappedFile() throws IOException {
+    Path path = Files.createTempFile("TensorTest", ".bin");
+    try {
+      ByteBuffer buf = ByteBuffer.allocate(64 + 4 * 6).order(ByteOrder.LITTLE_ENDIAN);
+      buf.position(64);
+      buf.asFloatBuffer().put(new float[] {1f, 2f, 3f, 4f, 5f, 6f});
+      Files.write(path, buf.array());
+
+      try (Tensor t = Tensor.fromMappedFile(path.toFile(), DataType.FLOAT, new long[] {3, 2}, 64)) {
+        assertEquals(DataType.FLOAT, t.dataType());
+        assertArrayEquals(new long[] {3, 2}, t.shape());
+        float[][] expected = {{1f, 2f}, {3f, 4f}, {5f, 6f}};
+        assertArrayEquals(expected, t.copyTo(new float[3][2]));
+      }
+
+      try (Tensor t = Tensor.fromMappedFile(path.toFile(), DataType.FLOAT, new long[] {7}, 64)) {
+        fail("should have failed on a file that is too short");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void views() {
+    try (Tensor t = Tensor.create(new float[][] {{1f, 2f}, {3f, 4f}})) {
+      FloatBuffer view = t.asFloatBuffer();
+      assertTrue(view.isReadOnly());
+      assertEquals(4, view.remaining());
+      assertEquals(4f, view.get(3), EPSILON_F);
+      // Each view has its own position.
+      view.get();
+      assertEquals(4, t.asFloatBuffer().remaining());
+
+      ByteBuffer bytes = t.asByteBuffer();
+      assertTrue(bytes.isReadOnly());
+      assertEquals(ByteOrder.nativeOrder(), bytes.order());
+      assertEquals(t.numBytes(), bytes.remaining());
+      assertEquals(2f, bytes.getFloat(4), EPSILON_F);
+      try {
+        bytes.put((byte) 0);
+        fail("should not be able to modify a read-only view");
+      } catch (ReadOnlyBufferException e) {
+        // expected
+      }
+      try {
+        t.asIntBuffer();
+        fail("should have failed on a type mismatch");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+    try (Tensor t = Tensor.create(new int[] {1, 2, 3})) {
+      assertEquals(3, t.asIntBuffer().get(2));
+    }
+    try (Tensor t = Tensor.create(new long[] {1, 2, 3})) {
+      assertEquals(3L, t.asLongBuffer().get(2));
+    }
+    try (Tensor t = Tensor.create(new double[] {1, 2, 3})) {
+      assertEquals(3d, t.asDoubleBuffer().get(2), EPSILON);
+    }
+  }
+
+  @Test
+  public void reducedPrecisionTypes() {
+    short[][] shorts = {{1, -2}, {3, Short.MAX_VALUE}};
+    try (Tensor t = Tensor.create(shorts)) {
+      assertEquals(DataType.INT16, t.dataType());
+      assertEquals(8, t.numBytes());
+      assertEquals(Short.MAX_VALUE, t.asShortBuffer().get(3));
+      assertArrayEquals(shorts, t.copyTo(new short[2][2]));
+    }
+
+    float[] floats = {1f, -0.5f, 65504f};
+    ByteBuffer buf = ByteBuffer.allocate(2 * floats.length).order(ByteOrder.nativeOrder());
+    Conversions.floatToHalf(FloatBuffer.wrap(floats), buf.asShortBuffer());
+    try (Tensor t = Tensor.create(DataType.HALF, new long[] {3}, buf)) {
+      assertEquals(DataType.HALF, t.dataType());
+      assertEquals(6, t.numBytes());
+      ShortBuffer halves = ShortBuffer.allocate(3);
+      t.writeTo(halves);
+      halves.flip();
+      FloatBuffer got = FloatBuffer.allocate(3);
+      Conversions.halfToFloat(halves, got);
+      assertArrayEquals(floats, got.array(), EPSILON_F);
+      try {
+        t.asFloatBuffer();
+        fail("should have failed on a type mismatch");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+
+    buf = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+    try (Tensor t = Tensor.create(DataType.BFLOAT16, new long[] {2}, buf)) {
+      assertEquals(2, t.asShortBuffer().remaining());
+    }
+    try (Tensor t = Tensor.create(DataType.INT8, new long[] {4}, ByteBuffer.allocate(4))) {
+      assertEquals(4, t.numBytes());
+    }
+    try (Tensor t = Tensor.create(DataType.QUINT8, new long[] {2, 2}, ByteBuffer.allocate(4))) {
+      assertEquals(4, t.numElements());
+    }
+  }
+
+  @Test
+  public void slice() {
+    Tensor parent = Tensor.create(new int[][] {{1, 2}, {3, 4}, {5, 6}, {7, 8}});
+    try (Tensor t = parent.slice(1, 3)) {
+      assertEquals(DataType.INT32, t.dataType());
+      assertArrayEquals(new long[] {2, 2}, t.shape());
+      // Slices remain valid after the Tensor they were sliced from is closed.
+      parent.close();
+      assertArrayEquals(new int[][] {{3, 4}, {5, 6}}, t.copyTo(new int[2][2]));
+      try (Tensor u = t.slice(1, 2)) {
+        assertArrayEquals(new int[][] {{5, 6}}, u.copyTo(new int[1][2]));
+      }
+      try (Tensor u = t.slice(1, 1)) {
+        assertArrayEquals(new long[] {0, 2}, u.shape());
+        assertEquals(0, u.numBytes());
+      }
+      try (Tensor u = t.slice(1, 3)) {
+        fail("should have failed on an out of bounds slice");
+      } catch (IndexOutOfBoundsException e) {
+        // expected
+      }
+    }
+    try (Tensor t = Tensor.create(1f)) {
+      t.slice(0, 1);
+      fail("should not be able to slice a scalar");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void sliceWithOddRowSize() {
+    // Rows of 3 bytes, so that slices start at addresses that TensorFlow kernels cannot use as is.
+    byte[] data = new byte[15];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) i;
+    }
+    Tensor slice;
+    try (Tensor parent = Tensor.create(DataType.UINT8, new long[] {5, 3}, ByteBuffer.wrap(data))) {
+      slice = parent.slice(1, 4);
+    }
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "x", DataType.UINT8);
+      g.opBuilder("Cast", "y").addInput(x).setAttr("DstT", DataType.INT32).build();
+      try (Tensor y = s.runner().feed("x", slice).fetch("y").run().get(0)) {
+        assertArrayEquals(new long[] {3, 3}, y.shape());
+        assertArrayEquals(
+            new int[][] {{3, 4, 5}, {6, 7, 8}, {9, 10, 11}}, y.copyTo(new int[3][3]));
+      }
+    } finally {
+      slice.close();
+    }
+  }
+
+  @Test
+  public void unstack() {
+    List<Tensor> rows;
+    try (Tensor t = Tensor.create(new float[][] {{1f, 2f, 3f}, {4f, 5f, 6f}})) {
+      rows = t.unstack();
+    }
+    assertEquals(2, rows.size());
+    assertArrayEquals(new long[] {3}, rows.get(0).shape());
+    assertArrayEquals(new float[] {1f, 2f, 3f}, rows.get(0).copyTo(new float[3]), EPSILON_F);
+    assertArrayEquals(new float[] {4f, 5f, 6f}, rows.get(1).copyTo(new float[3]), EPSILON_F);
+
+    // Slices can be fed to a Session.
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "x", DataType.FLOAT);
+      g.opBuilder("Neg", "y").addInput(x).build();
+      try (Tensor y = s.runner().feed("x", rows.get(1)).fetch("y").run().get(0)) {
+        assertArrayEquals(new float[] {-4f, -5f, -6f}, y.copyTo(new float[3]), EPSILON_F);
+      }
+    }
+    for (Tensor r : rows) {
+      r.close();
+    }
+  }
+
   @Test
   public void writeTo() {
     int[] ints = {1, 2, 3};
@@ -206,7 +451,7 @@ public class TensorTest {
       // validate the use of direct buffers
       {
         DoubleBuffer buf =
-            ByteBuffer.allocateDirect(tdoubles.numBytes())
+            ByteBuffer.allocateDirect((int) tdoubles.numBytes())
                 .order(ByteOrder.nativeOrder())
                 .asDoubleBuffer();
         tdoubles.writeTo(buf);
@@ -217,25 +462,25 @@ public class TensorTest {
 
       // validate typed buffers (content, position)
       {
-        FloatBuffer buf = FloatBuffer.allocate(tfloats.numElements());
+        FloatBuffer buf = FloatBuffer.allocate((int) tfloats.numElements());
         tfloats.writeTo(buf);
         assertEquals(tfloats.numElements(), buf.position());
         assertEquals(floats[0], buf.get(0), EPSILON);
       }
       {
-        DoubleBuffer buf = DoubleBuffer.allocate(tdoubles.numElements());
+        DoubleBuffer buf = DoubleBuffer.allocate((int) tdoubles.numElements());
         tdoubles.writeTo(buf);
         assertEquals(tdoubles.numElements(), buf.position());
         assertEquals(doubles[0], buf.get(0), EPSILON);
       }
       {
-        IntBuffer buf = IntBuffer.allocate(tints.numElements());
+        IntBuffer buf = IntBuffer.allocate((int) tints.numElements());
         tints.writeTo(buf);
         assertEquals(tints.numElements(), buf.position());
         assertEquals(ints[0], buf.get(0));
       }
       {
-        LongBuffer buf = LongBuffer.allocate(tlongs.numElements());
+        LongBuffer buf = LongBuffer.allocate((int) tlongs.numElements());
         tlongs.writeTo(buf);
         assertEquals(tlongs.numElements(), buf.position());
         assertEquals(longs[0], buf.get(0));
@@ -244,7 +489,7 @@ public class TensorTest {
       // validate byte order conversion
       {
         DoubleBuffer foreignBuf =
-            ByteBuffer.allocate(tdoubles.numBytes())
+            ByteBuffer.allocate((int) tdoubles.numBytes())
                 .order(
                     ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
                         ? ByteOrder.BIG_ENDIAN
@@ -386,6 +631,90 @@ public class TensorTest {
     }
   }
 
+  @Test
+  public void sixDimensional() {
+    int[][][][][][] sixD = new int[2][1][3][1][2][2];
+    int n = 0;
+    for (int[][][][][] a : sixD) {
+      for (int[][][][] b : a) {
+        for (int[][][] c : b) {
+          for (int[][] d : c) {
+            for (int[] e : d) {
+              for (int i = 0; i < e.length; ++i) {
+                e[i] = n++;
+              }
+            }
+          }
+        }
+      }
+    }
+    try (Tensor t = Tensor.create(sixD)) {
+      assertEquals(DataType.INT32, t.dataType());
+      assertArrayEquals(new long[] {2, 1, 3, 1, 2, 2}, t.shape());
+      int[] flat = new int[(int) t.numElements()];
+      t.writeTo(IntBuffer.wrap(flat));
+      for (int i = 0; i < flat.length; ++i) {
+        assertEquals(i, flat[i]);
+      }
+      assertArrayEquals(sixD, t.copyTo(new int[2][1][3][1][2][2]));
+    }
+  }
+
+  @Test
+  public void nDimensionalLarge() {
+    // Large enough to be copied to and from the tensor by multiple threads.
+    float[][][] large = new float[64][512][257];
+    for (int i = 0; i < large.length; ++i) {
+      for (int j = 0; j < large[i].length; ++j) {
+        for (int k = 0; k < large[i][j].length; ++k) {
+          large[i][j][k] = i * 1000000f + j * 1000f + k;
+        }
+      }
+    }
+    try (Tensor t = Tensor.create(large)) {
+      assertArrayEquals(new long[] {64, 512, 257}, t.shape());
+      FloatBuffer buf = FloatBuffer.allocate((int) t.numElements());
+      t.writeTo(buf);
+      assertEquals(large[0][0][1], buf.get(1), EPSILON_F);
+      assertEquals(large[63][511][256], buf.get(buf.capacity() - 1), EPSILON_F);
+      assertArrayEquals(large, t.copyTo(new float[64][512][257]));
+    }
+  }
+
+  @Test
+  public void nDimensionalStrings() {
+    byte[][] vector = {"foo".getBytes(UTF_8), new byte[0], "a longer string".getBytes(UTF_8)};
+    try (Tensor t = Tensor.create(vector)) {
+      assertEquals(DataType.STRING, t.dataType());
+      assertEquals(1, t.numDimensions());
+      assertArrayEquals(new long[] {3}, t.shape());
+
+      byte[][] got = t.copyTo(new byte[3][]);
+      assertArrayEquals(vector, got);
+    }
+
+    byte[][][] matrix = new byte[2][3][];
+    for (int i = 0; i < 2; ++i) {
+      for (int j = 0; j < 3; ++j) {
+        matrix[i][j] = String.format("(%d, %d)", i, j).getBytes(UTF_8);
+      }
+    }
+    try (Tensor t = Tensor.create(matrix)) {
+      assertEquals(DataType.STRING, t.dataType());
+      assertEquals(2, t.numDimensions());
+      assertArrayEquals(new long[] {2, 3}, t.shape());
+
+      byte[][][] got = t.copyTo(new byte[2][3][]);
+      assertArrayEquals(matrix, got);
+    }
+
+    try (Tensor t = Tensor.create(new byte[][] {null})) {
+      fail("should have failed on a null element");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   @Test
   public void failCreateOnMismatchedDimensions() {
     int[][][] invalid = new int[3][1][];
@@ -0,0 +1,179 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.profile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.tensorflow.Graph;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+import org.tensorflow.TestUtil;
+
+/** Unit tests for {@link org.tensorflow.profile.Profiler}. */
+@RunWith(JUnit4.class)
+public class ProfilerTest {
+
+  @Test
+  public void record() {
+    Profiler profiler = Profiler.builder().build();
+    byte[] metadata =
+        message(
+            1, // step_stats
+            message(
+                1, // dev_stats
+                concat(
+                    string(1, "/job:localhost/replica:0/task:0/cpu:0"),
+                    message(2, nodeStats("a", "a = MatMul(x, y)", 30, 1024)),
+                    message(2, nodeStats("b", "b = MatMul(a, y)", 50, 2048)),
+                    message(2, nodeStats("c", "c = Add(a, b)", 10, 0)),
+                    message(2, nodeStats("_SOURCE", null, 1, 0)))));
+    profiler.record(metadata);
+    profiler.record(metadata);
+    assertEquals(2, profiler.numSampledRuns());
+
+    List<OpStats> ops = profiler.topOps(2);
+    assertEquals(2, ops.size());
+    assertEquals("b", ops.get(0).name());
+    assertEquals(100, ops.get(0).totalMicros());
+    assertEquals(2, ops.get(0).count());
+    assertEquals(2048, ops.get(0).allocatedBytes().max());
+    assertEquals("a", ops.get(1).name());
+
+    List<OpStats> types = profiler.topOpTypes(10);
+    assertEquals(3, types.size());
+    assertEquals("MatMul", types.get(0).name());
+    assertEquals(160, types.get(0).totalMicros());
+    assertEquals(4, types.get(0).count());
+    assertEquals("Add", types.get(1).name());
+    assertEquals("_SOURCE", types.get(2).name());
+
+    profiler.reset();
+    assertEquals(0, profiler.numSampledRuns());
+    assertNull(profiler.op("a"));
+  }
+
+  @Test
+  public void failOnMalformedMetadata() {
+    Profiler profiler = Profiler.builder().build();
+    try {
+      profiler.record(new byte[] {0x0a, 0x05, 0x01});
+      fail("should fail on a truncated message");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void histogram() {
+    Histogram h = new Histogram();
+    assertEquals(0, h.percentile(50));
+    for (int i = 1; i <= 100; ++i) {
+      h.add(i);
+    }
+    assertEquals(100, h.count());
+    assertEquals(5050, h.sum());
+    assertEquals(1, h.min());
+    assertEquals(100, h.max());
+    assertEquals(50.5, h.mean(), 1e-9);
+    long p50 = h.percentile(50);
+    assertTrue("p50 = " + p50, p50 >= 50 && p50 < 100);
+    assertEquals(100, h.percentile(100));
+    assertEquals(1, h.percentile(0));
+  }
+
+  @Test
+  public void sampleRuns() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        Profiler profiler = Profiler.builder().sampleEvery(2).build();
+        for (int i = 0; i < 4; ++i) {
+          List<Tensor> outputs = profiler.run(s.runner().feed("X", x).fetch("Y"));
+          try (Tensor y = outputs.get(0)) {
+            assertEquals(31, y.copyTo(new int[1][1])[0][0]);
+          }
+        }
+        assertEquals(4, profiler.numRuns());
+        assertEquals(2, profiler.numSampledRuns());
+        OpStats matmul = profiler.op("Y");
+        assertNotNull(matmul);
+        assertEquals(2, matmul.count());
+        boolean sawMatMul = false;
+        for (OpStats t : profiler.topOpTypes(Integer.MAX_VALUE)) {
+          sawMatMul |= t.name().equals("MatMul");
+        }
+        assertTrue(sawMatMul);
+      }
+    }
+  }
+
+  private static byte[] nodeStats(String name, String label, long micros, long bytes) {
+    byte[] ret = concat(string(1, name), varint(5, micros));
+    if (bytes > 0) {
+      ret = concat(ret, message(6, concat(string(1, "cpu"), varint(2, bytes))));
+    }
+    if (label != null) {
+      ret = concat(ret, string(8, label));
+    }
+    return ret;
+  }
+
+  private static byte[] varint(int field, long value) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeRawVarint(out, field << 3);
+    writeRawVarint(out, value);
+    return out.toByteArray();
+  }
+
+  private static byte[] string(int field, String value) {
+    return message(field, value.getBytes(UTF_8));
+  }
+
+  private static byte[] message(int field, byte[] value) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeRawVarint(out, (field << 3) | 2);
+    writeRawVarint(out, value.length);
+    out.write(value, 0, value.length);
+    return out.toByteArray();
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] p : parts) {
+      out.write(p, 0, p.length);
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeRawVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7fL) != 0) {
+      out.write((int) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+}
@@ -0,0 +1,149 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.tensorflow.DataType;
+import org.tensorflow.Graph;
+import org.tensorflow.Output;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+import org.tensorflow.TestUtil;
+
+/** Unit tests for {@link org.tensorflow.serving.BatchingSession}. */
+@RunWith(JUnit4.class)
+public class BatchingSessionTest {
+
+  @Test
+  public void batchesConcurrentRequests() throws Exception {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "X", DataType.FLOAT);
+      TestUtil.addN(g, x, x);
+      List<Tensor> inputs = new ArrayList<Tensor>();
+      List<Future<List<Tensor>>> results = new ArrayList<Future<List<Tensor>>>();
+      try (BatchingSession b =
+          BatchingSession.builder(s)
+              .feeds("X")
+              .fetches("AddN")
+              .maxBatchSize(3)
+              .maxDelay(1, TimeUnit.HOURS)
+              .build()) {
+        for (int i = 0; i < 3; ++i) {
+          Tensor t = Tensor.create(new float[][] {{i, -i}});
+          inputs.add(t);
+          results.add(b.submit(t));
+        }
+        for (int i = 0; i < 3; ++i) {
+          try (Tensor y = results.get(i).get().get(0)) {
+            assertArrayEquals(new long[] {1, 2}, y.shape());
+            assertArrayEquals(new float[] {2 * i, -2 * i}, y.copyTo(new float[1][2])[0], 0f);
+          }
+        }
+        BatchingSession.Metrics m = b.metrics();
+        assertEquals(1, m.numBatches());
+        assertEquals(3, m.numRequests());
+        assertEquals(3.0, m.meanBatchSize(), 0);
+      } finally {
+        for (Tensor t : inputs) {
+          t.close();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void batchingLeavesInputsUnchanged() throws Exception {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "X", DataType.FLOAT);
+      TestUtil.addN(g, x, x);
+      try (BatchingSession b =
+              BatchingSession.builder(s)
+                  .feeds("X")
+                  .fetches("AddN")
+                  .maxBatchSize(3)
+                  .maxDelay(1, TimeUnit.HOURS)
+                  .build();
+          Tensor first = Tensor.create(new float[][] {{1, 2}});
+          Tensor second = Tensor.create(new float[][] {{3, 4}, {5, 6}})) {
+        Future<List<Tensor>> r1 = b.submit(first);
+        Future<List<Tensor>> r2 = b.submit(second);
+        r1.get().get(0).close();
+        r2.get().get(0).close();
+        assertEquals(1, b.metrics().numBatches());
+        assertArrayEquals(new long[] {1, 2}, first.shape());
+        assertArrayEquals(new long[] {2, 2}, second.shape());
+        assertArrayEquals(new float[] {1, 2}, first.copyTo(new float[1][2])[0], 0f);
+      }
+    }
+  }
+
+  @Test
+  public void closeCompletesPendingRequests() throws Exception {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "X", DataType.FLOAT);
+      TestUtil.addN(g, x, x);
+      BatchingSession b =
+          BatchingSession.builder(s)
+              .feeds("X")
+              .fetches("AddN")
+              .maxDelay(1, TimeUnit.HOURS)
+              .targetLatency(10, TimeUnit.MILLISECONDS)
+              .build();
+      try (Tensor t = Tensor.create(new float[][] {{1f}, {2f}})) {
+        Future<List<Tensor>> f = b.submit(t);
+        b.close();
+        try (Tensor y = f.get().get(0)) {
+          assertArrayEquals(new float[][] {{2f}, {4f}}, y.copyTo(new float[2][1]));
+        }
+        try {
+          b.submit(t);
+          fail("should not accept requests after close()");
+        } catch (IllegalStateException e) {
+          // expected
+        }
+      }
+    }
+  }
+
+  @Test
+  public void rejectsUnbatchableInputs() {
+    try (Graph g = new Graph();
+        Session s = new Session(g)) {
+      Output x = TestUtil.placeholder(g, "X", DataType.FLOAT);
+      TestUtil.addN(g, x, x);
+      try (BatchingSession b = BatchingSession.builder(s).feeds("X").fetches("AddN").build();
+          Tensor scalar = Tensor.create(1f)) {
+        b.run(scalar);
+        fail("should not batch scalars");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+}
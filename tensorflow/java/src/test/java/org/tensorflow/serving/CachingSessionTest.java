@@ -0,0 +1,177 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.tensorflow.Graph;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+import org.tensorflow.TestUtil;
+
+/** Unit tests for {@link org.tensorflow.serving.CachingSession}. */
+@RunWith(JUnit4.class)
+public class CachingSessionTest {
+
+  // Each entry caches a 2x1 INT32 feed and a 1x1 INT32 output.
+  private static final long ENTRY_BYTES = 12;
+
+  @Test
+  public void servesRepeatedRequests() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          CachingSession cache = CachingSession.builder(s).feeds("X").fetches("Y").build();
+          Tensor x = Tensor.create(new int[][] {{5}, {7}});
+          Tensor x2 = Tensor.create(new int[][] {{5}, {7}});
+          Tensor z = Tensor.create(new int[][] {{7}, {5}})) {
+        assertEquals(31, run(cache, x));
+        assertEquals(31, run(cache, x2));
+        assertEquals(29, run(cache, z));
+        assertEquals(29, run(cache, z));
+
+        CachingSession.Metrics m = cache.metrics();
+        assertEquals(2, m.hits());
+        assertEquals(2, m.misses());
+        assertEquals(0, m.evictions());
+        assertEquals(2, m.numEntries());
+        assertEquals(2 * ENTRY_BYTES, m.numBytes());
+        assertEquals(0.5, m.hitRate(), 0);
+      }
+    }
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          CachingSession cache =
+              CachingSession.builder(s)
+                  .feeds("X")
+                  .fetches("Y")
+                  .maxBytes(2 * ENTRY_BYTES)
+                  .build();
+          Tensor a = Tensor.create(new int[][] {{1}, {0}});
+          Tensor b = Tensor.create(new int[][] {{0}, {1}});
+          Tensor c = Tensor.create(new int[][] {{1}, {1}})) {
+        assertEquals(2, run(cache, a));
+        assertEquals(3, run(cache, b));
+        assertEquals(2, run(cache, a));
+        assertEquals(5, run(cache, c)); // evicts b
+        assertEquals(2, run(cache, a));
+        assertEquals(3, run(cache, b));
+
+        CachingSession.Metrics m = cache.metrics();
+        assertEquals(2, m.hits());
+        assertEquals(4, m.misses());
+        assertEquals(2, m.evictions());
+        assertEquals(2, m.numEntries());
+        assertEquals(2 * ENTRY_BYTES, m.numBytes());
+      }
+    }
+  }
+
+  @Test
+  public void doesNotCacheOversizedResults() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          CachingSession cache =
+              CachingSession.builder(s).feeds("X").fetches("Y").maxBytes(ENTRY_BYTES - 1).build();
+          Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        assertEquals(31, run(cache, x));
+        assertEquals(31, run(cache, x));
+        CachingSession.Metrics m = cache.metrics();
+        assertEquals(0, m.hits());
+        assertEquals(2, m.misses());
+        assertEquals(0, m.numEntries());
+        assertEquals(0, m.numBytes());
+      }
+    }
+  }
+
+  @Test
+  public void expiresEntries() throws InterruptedException {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          CachingSession cache =
+              CachingSession.builder(s)
+                  .feeds("X")
+                  .fetches("Y")
+                  .expireAfter(1, TimeUnit.MILLISECONDS)
+                  .build();
+          Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        assertEquals(31, run(cache, x));
+        Thread.sleep(10);
+        assertEquals(31, run(cache, x));
+        CachingSession.Metrics m = cache.metrics();
+        assertEquals(0, m.hits());
+        assertEquals(2, m.misses());
+        assertEquals(1, m.evictions());
+        assertEquals(1, m.numEntries());
+      }
+    }
+  }
+
+  @Test
+  public void failOnWrongNumberOfInputs() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          CachingSession cache = CachingSession.builder(s).feeds("X").fetches("Y").build()) {
+        cache.run();
+        fail("should fail with too few inputs");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void failAfterClose() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (Session s = new Session(g);
+          Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        CachingSession cache = CachingSession.builder(s).feeds("X").fetches("Y").build();
+        assertEquals(31, run(cache, x));
+        cache.close();
+        try {
+          cache.run(x);
+          fail("should fail after close");
+        } catch (IllegalStateException e) {
+          // expected
+        }
+      }
+    }
+  }
+
+  private static int run(CachingSession cache, Tensor x) {
+    try (Tensor y = cache.run(x).get(0)) {
+      int[][] result = y.copyTo(new int[1][1]);
+      assertArrayEquals(new long[] {1, 1}, y.shape());
+      return result[0][0];
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.serving;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.tensorflow.Graph;
+import org.tensorflow.Tensor;
+import org.tensorflow.TestUtil;
+
+/** Unit tests for {@link org.tensorflow.serving.SessionPool}. */
+@RunWith(JUnit4.class)
+public class SessionPoolTest {
+
+  @Test
+  public void routesToLeastLoaded() {
+    try (Graph g = new Graph();
+        SessionPool pool = new SessionPool(g, 2, 1, 1)) {
+      assertEquals(2, pool.size());
+      try (SessionPool.Lease a = pool.acquire();
+          SessionPool.Lease b = pool.acquire()) {
+        assertNotSame(a.session(), b.session());
+        SessionPool.Lease c = pool.acquire();
+        c.close();
+        a.close();
+        try (SessionPool.Lease d = pool.acquire()) {
+          assertSame(a.session(), d.session());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void prepare() {
+    try (Graph g = new Graph()) {
+      TestUtil.transpose_A_times_X(g, new int[][] {{2}, {3}});
+      try (SessionPool pool = new SessionPool(g, 3);
+          Tensor x = Tensor.create(new int[][] {{5}, {7}})) {
+        SessionPool.Callable c =
+            pool.prepare(Arrays.asList("X"), Arrays.asList("Y"), Collections.<String>emptyList());
+        for (int i = 0; i < 2 * pool.size(); ++i) {
+          List<Tensor> outputs = c.call(x);
+          try (Tensor y = outputs.get(0)) {
+            assertArrayEquals(new int[][] {{31}}, y.copyTo(new int[1][1]));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void failOnEmptyPool() {
+    try (Graph g = new Graph()) {
+      new SessionPool(g, 0);
+      fail("should not create an empty pool");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.tensorflow.Graph;
+import org.tensorflow.Operation;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+
+/** Unit tests for {@link org.tensorflow.tools.Freezer}. */
+@RunWith(JUnit4.class)
+public class FreezerTest {
+
+  private static final String SAVED_MODEL_PATH =
+      "tensorflow/cc/saved_model/testdata/half_plus_two/00000123";
+
+  @Test
+  public void freeze() {
+    byte[] frozen;
+    try (SavedModelBundle bundle = SavedModelBundle.load(SAVED_MODEL_PATH, "serve")) {
+      frozen = Freezer.freeze(bundle, Arrays.asList("y"));
+    }
+    try (Graph g = new Graph()) {
+      g.importGraphDef(frozen);
+      Iterator<Operation> it = g.operations();
+      while (it.hasNext()) {
+        Operation op = it.next();
+        assertFalse(op.name(), op.type().startsWith("Variable"));
+        assertFalse(op.name(), op.type().equals("RestoreV2"));
+      }
+      assertEquals("Const", g.operation("a").type());
+      assertEquals("Const", g.operation("b").type());
+      // Only used by other outputs.
+      assertNull(g.operation("c"));
+
+      try (Session s = new Session(g);
+          Tensor x = Tensor.create(new float[] {0, 2});
+          Tensor y = s.runner().feed("x", x).fetch("y").run().get(0)) {
+        assertArrayEquals(new float[] {2, 3}, y.copyTo(new float[2]), 0);
+      }
+    }
+  }
+
+  @Test
+  public void failOnMissingOutput() {
+    try (SavedModelBundle bundle = SavedModelBundle.load(SAVED_MODEL_PATH, "serve")) {
+      Freezer.freeze(bundle, Arrays.asList("missing"));
+      fail("should fail to freeze a missing output");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
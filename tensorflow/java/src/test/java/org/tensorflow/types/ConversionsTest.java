@@ -0,0 +1,116 @@
+/* Copyright 2017 The TensorFlow Authors. All Rights Reserved.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+package org.tensorflow.types;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link org.tensorflow.types.Conversions}. */
+@RunWith(JUnit4.class)
+public class ConversionsTest {
+
+  @Test
+  public void half() {
+    assertEquals((short) 0x3c00, Conversions.floatToHalf(1f));
+    assertEquals((short) 0xc000, Conversions.floatToHalf(-2f));
+    assertEquals((short) 0x7bff, Conversions.floatToHalf(65504f));
+    assertEquals((short) 0x7c00, Conversions.floatToHalf(65520f)); // rounds to infinity
+    assertEquals((short) 0xfc00, Conversions.floatToHalf(Float.NEGATIVE_INFINITY));
+    assertEquals((short) 0x0001, Conversions.floatToHalf(0x1p-24f)); // smallest subnormal
+    assertEquals((short) 0x0000, Conversions.floatToHalf(0x1p-25f)); // ties to even
+    assertEquals((short) 0x8000, Conversions.floatToHalf(-0f));
+    // 1 + 2^-11 is halfway between 1 and the next half, and rounds to even.
+    assertEquals((short) 0x3c00, Conversions.floatToHalf(1f + 0x1p-11f));
+    assertEquals((short) 0x3c02, Conversions.floatToHalf(1f + 3 * 0x1p-11f));
+    assertTrue(Float.isNaN(Conversions.halfToFloat(Conversions.floatToHalf(Float.NaN))));
+
+    for (int h = 0; h < 0x10000; ++h) {
+      short bits = (short) h;
+      float f = Conversions.halfToFloat(bits);
+      if (!Float.isNaN(f)) {
+        assertEquals(bits, Conversions.floatToHalf(f));
+      }
+    }
+  }
+
+  @Test
+  public void bfloat16() {
+    assertEquals((short) 0x3f80, Conversions.floatToBfloat16(1f));
+    assertEquals(1f, Conversions.bfloat16ToFloat((short) 0x3f80), 0f);
+    assertEquals(-2f, Conversions.bfloat16ToFloat(Conversions.floatToBfloat16(-2f)), 0f);
+    // 1 + 2^-8 is halfway between 1 and the next bfloat16, and rounds to even.
+    assertEquals((short) 0x3f80, Conversions.floatToBfloat16(1f + 0x1p-8f));
+    assertEquals((short) 0x3f82, Conversions.floatToBfloat16(1f + 3 * 0x1p-8f));
+    assertTrue(Float.isNaN(Conversions.bfloat16ToFloat(Conversions.floatToBfloat16(Float.NaN))));
+    assertEquals(
+        Float.POSITIVE_INFINITY,
+        Conversions.bfloat16ToFloat(Conversions.floatToBfloat16(Float.MAX_VALUE)),
+        0f);
+  }
+
+  @Test
+  public void quantized() {
+    assertEquals((byte) 10, Conversions.floatToInt8(1f, 0.1f, 0));
+    assertEquals((byte) 127, Conversions.floatToInt8(100f, 0.1f, 0));
+    assertEquals((byte) -128, Conversions.floatToInt8(-100f, 0.1f, 0));
+    assertEquals(-1f, Conversions.int8ToFloat((byte) -5, 0.25f, -1), 0f);
+
+    assertEquals((byte) 200, Conversions.floatToUInt8(1f, 0.01f, 100));
+    assertEquals((byte) 255, Conversions.floatToUInt8(10f, 0.01f, 100));
+    assertEquals((byte) 0, Conversions.floatToUInt8(-10f, 0.01f, 100));
+    assertEquals(1.55f, Conversions.uint8ToFloat((byte) 255, 0.01f, 100), 1e-6f);
+  }
+
+  @Test
+  public void bulk() {
+    float[] floats = {0.5f, -1f, 2f, 4f};
+    FloatBuffer src = FloatBuffer.wrap(floats);
+    src.get(); // skip the first element
+    ShortBuffer halves = ShortBuffer.allocate(3);
+    Conversions.floatToHalf(src, halves);
+    assertEquals(0, src.remaining());
+    assertEquals(0, halves.remaining());
+    halves.flip();
+    FloatBuffer dst = FloatBuffer.allocate(3);
+    Conversions.halfToFloat(halves, dst);
+    assertArrayEquals(new float[] {-1f, 2f, 4f}, dst.array(), 0f);
+
+    ByteBuffer quantized = ByteBuffer.allocate(4);
+    Conversions.floatToUInt8(FloatBuffer.wrap(floats), quantized, 0.5f, 2);
+    assertArrayEquals(new byte[] {3, 0, 6, 10}, quantized.array());
+    quantized.flip();
+    dst = FloatBuffer.allocate(4);
+    Conversions.uint8ToFloat(quantized, dst, 0.5f, 2);
+    assertArrayEquals(floats, dst.array(), 0f);
+
+    try {
+      Conversions.floatToBfloat16(FloatBuffer.wrap(floats), ShortBuffer.allocate(3));
+      fail("should have failed on a short destination");
+    } catch (BufferOverflowException e) {
+      // expected
+    }
+  }
+}